@@ -0,0 +1,64 @@
+package com.example.songs.benchmarks;
+
+import com.example.songs.SongManagerApplication;
+import com.example.songs.model.Song;
+import com.example.songs.model.SongStream;
+import com.example.songs.service.SongService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+final class BenchmarkSongs {
+
+    private BenchmarkSongs() {
+    }
+
+    /** Starts the application with {@code properties} taking precedence over the application's own files. */
+    static ConfigurableApplicationContext start(String... properties) {
+        String[] args = new String[properties.length];
+        for (int i = 0; i < properties.length; i++) {
+            args[i] = "--" + properties[i];
+        }
+        return new SpringApplicationBuilder(SongManagerApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.main.banner-mode=off", "logging.level.root=warn")
+                .run(args);
+    }
+
+    /** Properties selecting {@code mem} (the default in-memory H2) or {@code file} storage under {@code dir}. */
+    static String[] storage(String mode, Path dir) {
+        if (mode.equals("file")) {
+            return new String[]{"spring.profiles.active=file", "songs.storage.dir=" + dir};
+        }
+        return new String[0];
+    }
+
+    static Song song(int i) {
+        return new Song("Song " + i, "Artist " + (i % 1000), "Album " + (i % 5000), 1950 + i % 75);
+    }
+
+    static List<Song> songs(int count) {
+        List<Song> songs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            songs.add(song(i));
+        }
+        return songs;
+    }
+
+    /** Inserts {@code count} songs through the batch path and returns their ids. */
+    static long[] populate(SongService service, int count) {
+        service.createSongs(new SongStream(action -> {
+            for (int i = 0; i < count; i++) {
+                action.accept(song(i));
+            }
+        }), 1000);
+        long[] ids = new long[count];
+        int[] next = {0};
+        service.forEachSong(song -> ids[next[0]++] = song.getId());
+        return ids;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.songs.benchmarks;
+
+import com.example.songs.model.Song;
+import com.example.songs.repository.SongRepository;
+import com.example.songs.service.SongService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SongRepository#findById} on the JPA repository, answered from Hibernate's
+ * second-level cache once warm, and on the {@code columnar} profile's column store.
+ * The retained heap per song after loading and warming is printed at setup; it includes
+ * the in-memory suggest, search and stats indexes that both variants keep.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Benchmark)
+public class SongColumnStoreBenchmark {
+
+    @Param({"100000"})
+    private int catalogSize;
+
+    @Param({"jpa", "columnar"})
+    private String repositoryType;
+
+    private ConfigurableApplicationContext context;
+    private SongRepository repository;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String profile = repositoryType.equals("columnar") ? "columnar" : "default";
+        context = BenchmarkSongs.start("spring.profiles.active=" + profile);
+        repository = context.getBean(SongRepository.class);
+        long before = usedHeap();
+        ids = BenchmarkSongs.populate(context.getBean(SongService.class), catalogSize);
+        for (long id : ids) {
+            repository.findById(id);
+        }
+        System.out.printf("%n%s: %d bytes retained per song%n", repositoryType, (usedHeap() - before) / catalogSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Song> findById() {
+        return repository.findById(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
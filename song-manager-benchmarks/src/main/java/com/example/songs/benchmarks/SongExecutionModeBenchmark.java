@@ -0,0 +1,51 @@
+package com.example.songs.benchmarks;
+
+import com.example.songs.controller.SongController;
+import com.example.songs.model.Song;
+import com.example.songs.service.SongService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SongController#getById} under more callers than JDBC connections, run inline on
+ * the caller ({@code blocking}) and through the bounded JDBC executor ({@code async}).
+ * Uncached, so every call reaches the database.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class SongExecutionModeBenchmark {
+
+    @Param({"blocking", "async"})
+    private String mode;
+
+    private ConfigurableApplicationContext context;
+    private SongController controller;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSongs.start("songs.execution.mode=" + mode, "spring.cache.type=none",
+                "songs.execution.queue-capacity=1000");
+        controller = context.getBean(SongController.class);
+        ids = BenchmarkSongs.populate(context.getBean(SongService.class), 10000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<Song> getById() {
+        return controller.getById(ids[ThreadLocalRandom.current().nextInt(ids.length)], null).join();
+    }
+}
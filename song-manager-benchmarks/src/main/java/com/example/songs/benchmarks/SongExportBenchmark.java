@@ -0,0 +1,73 @@
+package com.example.songs.benchmarks;
+
+import com.example.songs.SongStreamHttpMessageConverter;
+import com.example.songs.model.SongStream;
+import com.example.songs.service.SongService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows per second of {@code GET /songs/export}: the database cursor behind
+ * {@link SongService#forEachSong} written through {@link SongStreamHttpMessageConverter}
+ * to a discarding stream, per format and with and without gzip.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+@OperationsPerInvocation(SongExportBenchmark.ROWS)
+public class SongExportBenchmark {
+    static final int ROWS = 100000;
+
+    @Param({"application/x-ndjson", "text/csv"})
+    private String format;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    private ConfigurableApplicationContext context;
+    private SongService service;
+    private SongStreamHttpMessageConverter converter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSongs.start();
+        service = context.getBean(SongService.class);
+        converter = new SongStreamHttpMessageConverter(context.getBean(ObjectMapper.class));
+        BenchmarkSongs.populate(service, ROWS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void export() throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        converter.write(new SongStream(service::forEachSong), MediaType.parseMediaType(format), new HttpOutputMessage() {
+            @Override
+            public OutputStream getBody() {
+                return OutputStream.nullOutputStream();
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+        });
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.songs.benchmarks;
+
+import com.example.songs.model.Song;
+import com.example.songs.service.SongService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SongService#getSongById} over random existing ids, with and without
+ * the in-process song cache. Without it, Hibernate's second-level cache is off
+ * as well, so every lookup reads the row from H2.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SongLookupBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int tableSize;
+
+    @Param({"caffeine", "none"})
+    private String cacheType;
+
+    private ConfigurableApplicationContext context;
+    private SongService service;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean cached = !cacheType.equals("none");
+        context = BenchmarkSongs.start("spring.cache.type=" + cacheType,
+                "spring.jpa.properties.hibernate.cache.use_second_level_cache=" + cached,
+                "spring.jpa.properties.hibernate.cache.use_query_cache=" + cached);
+        service = context.getBean(SongService.class);
+        ids = BenchmarkSongs.populate(service, tableSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Song getSongById() {
+        return service.getSongById(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.songs.benchmarks;
+
+import com.example.songs.model.Song;
+import com.example.songs.service.SongService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the service timers and statement counting: the same lookups with
+ * {@code songs.metrics.enabled} on and off. The cached path is the one where the
+ * instrumentation is most visible relative to the work done.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SongMetricsOverheadBenchmark {
+
+    @Param({"true", "false"})
+    private boolean metrics;
+
+    @Param({"caffeine", "none"})
+    private String cacheType;
+
+    private ConfigurableApplicationContext context;
+    private SongService service;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSongs.start("songs.metrics.enabled=" + metrics, "spring.cache.type=" + cacheType);
+        service = context.getBean(SongService.class);
+        ids = BenchmarkSongs.populate(service, 1000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Song getSongById() {
+        return service.getSongById(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+}
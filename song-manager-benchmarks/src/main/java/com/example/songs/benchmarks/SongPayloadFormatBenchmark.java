@@ -0,0 +1,96 @@
+package com.example.songs.benchmarks;
+
+import com.example.songs.SongStreamHttpMessageConverter;
+import com.example.songs.model.Song;
+import com.example.songs.model.SongStream;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization CPU of {@code GET /songs} per negotiable format, with and without gzip.
+ * Songs come from memory, so only the converter is measured. The size of the body as it
+ * would be sent is printed once per trial as {@code payload: <bytes> bytes/song}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SongPayloadFormatBenchmark {
+
+    @Param({"10000"})
+    private int size;
+
+    @Param({"application/json", "application/vnd.songs.columnar+json", "application/cbor", "application/x-jackson-smile"})
+    private String format;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    private List<Song> songs;
+    private MediaType mediaType;
+    private SongStreamHttpMessageConverter converter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        songs = BenchmarkSongs.songs(size);
+        for (int i = 0; i < songs.size(); i++) {
+            songs.get(i).setId((long) i + 1);
+        }
+        mediaType = MediaType.parseMediaType(format);
+        converter = new SongStreamHttpMessageConverter(new ObjectMapper(), new ObjectMapper(new CBORFactory()),
+                new ObjectMapper(new SmileFactory()), 0);
+        try {
+            System.out.printf("payload: %.1f bytes/song%n", (double) write() / size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Benchmark
+    public long write() throws IOException {
+        CountingOutputStream body = new CountingOutputStream();
+        HttpHeaders headers = new HttpHeaders();
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        converter.write(new SongStream(songs::forEach), mediaType, new HttpOutputMessage() {
+            @Override
+            public OutputStream getBody() {
+                return body;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+        });
+        return body.count;
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.songs.benchmarks;
+
+import com.example.songs.model.Song;
+import com.example.songs.repository.SongRepository;
+import com.example.songs.service.SongService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Table-size sensitive reads: loading the whole catalog and looking a song up by title.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SongQueryBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int tableSize;
+
+    private ConfigurableApplicationContext context;
+    private SongService service;
+    private SongRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSongs.start();
+        service = context.getBean(SongService.class);
+        repository = context.getBean(SongRepository.class);
+        BenchmarkSongs.populate(service, tableSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Song> getAllSongs() {
+        return service.getAllSongs();
+    }
+
+    @Benchmark
+    public Optional<Song> findFirstByTitle() {
+        return repository.findFirstByTitle("Song " + ThreadLocalRandom.current().nextInt(tableSize));
+    }
+}
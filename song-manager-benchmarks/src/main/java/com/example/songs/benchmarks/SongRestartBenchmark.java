@@ -0,0 +1,63 @@
+package com.example.songs.benchmarks;
+
+import com.example.songs.service.SongService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time until a restarted application serves the whole catalog again. With {@code mem}
+ * storage the catalog has to be imported again; with {@code file} storage it is reopened
+ * from the database file written by an earlier run.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SongRestartBenchmark {
+
+    @Param({"100000"})
+    private int catalogSize;
+
+    @Param({"mem", "file"})
+    private String storage;
+
+    private Path storageDir;
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        storageDir = Files.createTempDirectory("songs-restart");
+        if (storage.equals("file")) {
+            try (ConfigurableApplicationContext first = BenchmarkSongs.start(BenchmarkSongs.storage(storage, storageDir))) {
+                BenchmarkSongs.populate(first.getBean(SongService.class), catalogSize);
+            }
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void stop() {
+        context.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(storageDir);
+    }
+
+    @Benchmark
+    public ConfigurableApplicationContext restart() {
+        context = BenchmarkSongs.start(BenchmarkSongs.storage(storage, storageDir));
+        if (storage.equals("mem")) {
+            BenchmarkSongs.populate(context.getBean(SongService.class), catalogSize);
+        }
+        return context;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.songs.benchmarks;
+
+import com.example.songs.model.Song;
+import com.example.songs.repository.SongRepository;
+import com.example.songs.service.SongService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The read path below the Spring "songs" cache, which is switched off here:
+ * {@link SongService#getSongById} and the title query with Hibernate's second-level
+ * and query cache on and off.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SongSecondLevelCacheBenchmark {
+
+    @Param({"true", "false"})
+    private boolean secondLevelCache;
+
+    private ConfigurableApplicationContext context;
+    private SongService service;
+    private SongRepository repository;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSongs.start("spring.cache.type=none",
+                "spring.jpa.properties.hibernate.cache.use_second_level_cache=" + secondLevelCache,
+                "spring.jpa.properties.hibernate.cache.use_query_cache=" + secondLevelCache);
+        service = context.getBean(SongService.class);
+        repository = context.getBean(SongRepository.class);
+        ids = BenchmarkSongs.populate(service, 10000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Song getSongById() {
+        return service.getSongById(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+
+    @Benchmark
+    public Optional<Song> findFirstByTitle() {
+        return repository.findFirstByTitle("Song " + ThreadLocalRandom.current().nextInt(1000));
+    }
+}
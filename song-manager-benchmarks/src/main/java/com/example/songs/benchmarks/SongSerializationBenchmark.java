@@ -0,0 +1,38 @@
+package com.example.songs.benchmarks;
+
+import com.example.songs.model.Song;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization cost of the {@code List<Song>} that {@code GET /songs} used to build.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SongSerializationBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<Song> songs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        songs = BenchmarkSongs.songs(size);
+    }
+
+    @Benchmark
+    public void writeSongList() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), songs);
+    }
+}
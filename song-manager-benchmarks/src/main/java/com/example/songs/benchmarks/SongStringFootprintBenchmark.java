@@ -0,0 +1,78 @@
+package com.example.songs.benchmarks;
+
+import com.example.songs.model.Song;
+import com.example.songs.service.SongService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SongService#getAllSongs} over a large catalog with canonicalized artist and
+ * album strings, and with canonicalization switched off so every loaded entity holds its
+ * own copies. The heap retained per song by one full result is printed at setup.
+ * <p>
+ * The catalog is kept in file storage with a small page cache, so rows are decoded into
+ * new strings on every read as with a server database; in-memory H2 would hand back the
+ * strings it stores.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@State(Scope.Benchmark)
+public class SongStringFootprintBenchmark {
+
+    @Param({"1000000"})
+    private int catalogSize;
+
+    private Path storageDir;
+    private ConfigurableApplicationContext context;
+    private SongService service;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        storageDir = Files.createTempDirectory("songs-strings");
+        context = BenchmarkSongs.start("spring.profiles.active=file", "songs.storage.dir=" + storageDir,
+                "songs.storage.cache-size-kb=1024", "songs.metrics.enabled=false");
+        service = context.getBean(SongService.class);
+        BenchmarkSongs.populate(service, catalogSize);
+        long before = usedHeap();
+        List<Song> songs = service.getAllSongs();
+        long retained = usedHeap() - before;
+        System.out.printf("%ncanonical-slots=%s: %d bytes retained per song%n",
+                System.getProperty("songs.strings.canonical-slots", "default"), retained / songs.size());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(storageDir);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+    public List<Song> canonicalStrings() {
+        return service.getAllSongs();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dsongs.strings.canonical-slots=0"})
+    public List<Song> duplicateStrings() {
+        return service.getAllSongs();
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.songs.benchmarks;
+
+import com.example.songs.model.Song;
+import com.example.songs.service.SongService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-row writes through {@link SongService} against a pre-filled table, with the
+ * in-memory database and with file storage, each written directly or write-behind.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SongWriteBenchmark {
+
+    @Param({"100000"})
+    private int tableSize;
+
+    @Param({"mem", "file"})
+    private String storage;
+
+    @Param({"direct", "behind"})
+    private String writeMode;
+
+    private Path storageDir;
+    private ConfigurableApplicationContext context;
+    private SongService service;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        storageDir = Files.createTempDirectory("songs-write");
+        List<String> properties = new ArrayList<>(List.of(BenchmarkSongs.storage(storage, storageDir)));
+        properties.add("songs.write.mode=" + writeMode);
+        context = BenchmarkSongs.start(properties.toArray(new String[0]));
+        service = context.getBean(SongService.class);
+        ids = BenchmarkSongs.populate(service, tableSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(storageDir);
+    }
+
+    @Benchmark
+    public Song createSong() {
+        return service.createSong(BenchmarkSongs.song(ThreadLocalRandom.current().nextInt()));
+    }
+
+    @Benchmark
+    public Song updateSong() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return service.updateSong(ids[random.nextInt(ids.length)], BenchmarkSongs.song(random.nextInt()));
+    }
+
+    @Benchmark
+    public void deleteSong(DoomedSong doomed) {
+        service.deleteSong(doomed.id);
+    }
+
+    /** A freshly created song for every {@code deleteSong} invocation. */
+    @State(Scope.Thread)
+    public static class DoomedSong {
+        private Long id;
+
+        @Setup(Level.Invocation)
+        public void create(SongWriteBenchmark benchmark) {
+            id = benchmark.service.createSong(BenchmarkSongs.song(-1)).getId();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.songs.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line of {@code loadtest.jar}. Options are {@code --name=value}; any option not
+ * listed here is passed on to the application, e.g. {@code --songs.write.mode=behind}.
+ */
+final class LoadTestOptions {
+
+    /** Requests per second over all workers, sent whether or not earlier requests have finished. */
+    final double rate;
+    final Duration warmup;
+    final Duration duration;
+    /** Workers, each sending {@code rate / workers} requests per second on one connection at a time. */
+    final int workers;
+    final int songs;
+    /** Zipf exponent of song popularity; 0 picks every song equally often. */
+    final double skew;
+    /** Relative weight of each operation of {@link SongWorkload}. */
+    final Map<String, Integer> mix;
+    /** File the corrected latency distribution of all operations is written to, in HdrHistogram's text format. */
+    final String histogramFile;
+    final List<String> applicationArgs;
+
+    private LoadTestOptions(Map<String, String> options, List<String> applicationArgs) {
+        this.rate = Double.parseDouble(options.getOrDefault("rate", "1000"));
+        this.warmup = DurationStyle.detectAndParse(options.getOrDefault("warmup", "10s"));
+        this.duration = DurationStyle.detectAndParse(options.getOrDefault("duration", "30s"));
+        this.workers = Integer.parseInt(options.getOrDefault("workers", "64"));
+        this.songs = Integer.parseInt(options.getOrDefault("songs", "10000"));
+        this.skew = Double.parseDouble(options.getOrDefault("skew", "0.99"));
+        this.mix = parseMix(options.getOrDefault("mix", "get=80,search=5,update=7,patch=5,create=3"));
+        this.histogramFile = options.getOrDefault("histogram-file", "loadtest-result.hgrm");
+        this.applicationArgs = applicationArgs;
+        if (rate <= 0 || workers <= 0 || songs <= 0 || skew < 0) {
+            throw new IllegalArgumentException("rate, workers and songs must be positive and skew not negative");
+        }
+    }
+
+    static LoadTestOptions parse(String... args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        List<String> applicationArgs = new ArrayList<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            String name = arg.substring(2, separator);
+            if (isOption(name)) {
+                options.put(name, arg.substring(separator + 1));
+            } else {
+                applicationArgs.add(arg);
+            }
+        }
+        return new LoadTestOptions(options, applicationArgs);
+    }
+
+    private static boolean isOption(String name) {
+        switch (name) {
+            case "rate":
+            case "warmup":
+            case "duration":
+            case "workers":
+            case "songs":
+            case "skew":
+            case "mix":
+            case "histogram-file":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static Map<String, Integer> parseMix(String spec) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected operation=weight in --mix but got " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                mix.put(parts[0].trim(), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("--mix has no operation with a positive weight");
+        }
+        return mix;
+    }
+}
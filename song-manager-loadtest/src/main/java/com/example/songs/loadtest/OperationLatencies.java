@@ -0,0 +1,39 @@
+package com.example.songs.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies of one operation in nanoseconds. {@code response time} runs from when the
+ * request was due by the schedule, so time spent waiting behind a slow earlier request
+ * counts against the run (the coordinated omission correction); {@code service time}
+ * runs from when it was actually sent, as a closed-loop client would measure it.
+ */
+final class OperationLatencies {
+
+    private final Recorder responseTime = new Recorder(3);
+    private final Recorder serviceTime = new Recorder(3);
+    private final LongAdder errors = new LongAdder();
+
+    void record(long responseNanos, long serviceNanos, boolean failed) {
+        responseTime.recordValue(responseNanos);
+        serviceTime.recordValue(serviceNanos);
+        if (failed) {
+            errors.increment();
+        }
+    }
+
+    Histogram responseTime() {
+        return responseTime.getIntervalHistogram();
+    }
+
+    Histogram serviceTime() {
+        return serviceTime.getIntervalHistogram();
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+}
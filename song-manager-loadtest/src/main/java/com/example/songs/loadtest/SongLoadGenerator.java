@@ -0,0 +1,82 @@
+package com.example.songs.loadtest;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load: every worker has a fixed schedule of send times, {@code workers / rate}
+ * seconds apart, and latency is measured from the scheduled time. A worker held up by a
+ * slow response sends its overdue requests back to back and they are charged the time they
+ * waited, so a stall shows up in the percentiles the way users would see it instead of
+ * silently lowering the request rate.
+ */
+final class SongLoadGenerator {
+
+    private final SongWorkload workload;
+    private final LoadTestOptions options;
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final Map<String, OperationLatencies> latencies = new LinkedHashMap<>();
+
+    SongLoadGenerator(SongWorkload workload, LoadTestOptions options) {
+        this.workload = workload;
+        this.options = options;
+        for (String operation : workload.operations()) {
+            latencies.put(operation, new OperationLatencies());
+        }
+    }
+
+    /** Runs the warmup and the measured period and returns the latencies of the measured period by operation. */
+    Map<String, OperationLatencies> run() throws Exception {
+        long interval = (long) (1e9 * options.workers / options.rate);
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmup.toNanos();
+        long end = measureFrom + options.duration.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(options.workers);
+        try {
+            Future<?>[] workers = new Future<?>[options.workers];
+            for (int i = 0; i < workers.length; i++) {
+                long first = start + interval * i / options.workers;
+                workers[i] = executor.submit(() -> {
+                    work(first, interval, measureFrom, end);
+                    return null;
+                });
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return latencies;
+    }
+
+    private void work(long first, long interval, long measureFrom, long end) throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (long due = first; due < end; due += interval) {
+            for (long now = System.nanoTime(); now < due; now = System.nanoTime()) {
+                LockSupport.parkNanos(due - now);
+            }
+            String operation = workload.nextOperation(random);
+            long sent = System.nanoTime();
+            boolean failed;
+            try {
+                failed = client.send(workload.request(operation, random), HttpResponse.BodyHandlers.discarding())
+                        .statusCode() >= 400;
+            } catch (IOException e) {
+                failed = true;
+            }
+            long done = System.nanoTime();
+            if (due >= measureFrom) {
+                latencies.get(operation).record(done - due, done - sent, failed);
+            }
+        }
+    }
+}
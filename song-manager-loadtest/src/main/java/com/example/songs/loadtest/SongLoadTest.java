@@ -0,0 +1,120 @@
+package com.example.songs.loadtest;
+
+import com.example.songs.SongManagerApplication;
+import com.example.songs.model.Song;
+import com.example.songs.model.SongStream;
+import com.example.songs.service.SongService;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Entry point of {@code loadtest.jar}. Starts the application on a random port against
+ * its default in-memory H2 database, loads {@code --songs} songs and drives the HTTP API
+ * from the same JVM with {@link SongLoadGenerator}, then prints latency percentiles per
+ * operation. Needs no network beyond the loopback interface. See {@link LoadTestOptions}
+ * for the command line.
+ */
+public class SongLoadTest {
+
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        try (ConfigurableApplicationContext context = start(options)) {
+            long[] ids = populate(context.getBean(SongService.class), options.songs);
+            URI base = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+            SongWorkload workload = new SongWorkload(base, new ZipfianKeys(ids, options.skew, 42), options.mix);
+
+            Map<String, OperationLatencies> latencies = new SongLoadGenerator(workload, options).run();
+
+            report(options, latencies);
+        }
+    }
+
+    private static ConfigurableApplicationContext start(LoadTestOptions options) {
+        List<String> args = new ArrayList<>();
+        args.add("--server.port=0");
+        args.addAll(options.applicationArgs);
+        return new SpringApplicationBuilder(SongManagerApplication.class)
+                .properties("spring.main.banner-mode=off", "logging.level.root=warn")
+                .run(args.toArray(new String[0]));
+    }
+
+    private static long[] populate(SongService service, int count) {
+        service.createSongs(new SongStream(action -> {
+            for (int i = 0; i < count; i++) {
+                action.accept(new Song("Song " + i, "Artist " + (i % 1000), "Album " + (i % 5000), 1950 + i % 75));
+            }
+        }), 1000);
+        long[] ids = new long[count];
+        int[] next = {0};
+        service.forEachSong(song -> ids[next[0]++] = song.getId());
+        return ids;
+    }
+
+    private static void report(LoadTestOptions options, Map<String, OperationLatencies> latencies) throws Exception {
+        Map<String, Histogram> responseTimes = new LinkedHashMap<>();
+        Map<String, Histogram> serviceTimes = new LinkedHashMap<>();
+        long errors = 0;
+        for (Map.Entry<String, OperationLatencies> entry : latencies.entrySet()) {
+            responseTimes.put(entry.getKey(), entry.getValue().responseTime());
+            serviceTimes.put(entry.getKey(), entry.getValue().serviceTime());
+            errors += entry.getValue().errors();
+        }
+        Histogram all = total(responseTimes);
+        double seconds = options.duration.toNanos() / 1e9;
+
+        System.out.printf("Target %.0f req/s over %d workers: %d requests in %.0fs (%.1f req/s), %d errors%n",
+                options.rate, options.workers, all.getTotalCount(), seconds, all.getTotalCount() / seconds, errors);
+        System.out.println();
+        System.out.println("Response time from scheduled send (corrected for coordinated omission), ms:");
+        print(responseTimes, all, operation -> latencies.get(operation).errors(), errors);
+        System.out.println();
+        System.out.println("Service time from actual send (uncorrected), ms:");
+        print(serviceTimes, total(serviceTimes), operation -> latencies.get(operation).errors(), errors);
+
+        try (PrintStream out = new PrintStream(new FileOutputStream(options.histogramFile))) {
+            all.outputPercentileDistribution(out, NANOS_PER_MILLI);
+        }
+        System.out.println();
+        System.out.println("Response time distribution written to " + options.histogramFile);
+    }
+
+    private static Histogram total(Map<String, Histogram> histograms) {
+        Histogram total = new Histogram(3);
+        for (Histogram histogram : histograms.values()) {
+            total.add(histogram);
+        }
+        return total;
+    }
+
+    private static void print(Map<String, Histogram> histograms, Histogram all, Function<String, Long> errors,
+                              long totalErrors) {
+        System.out.printf("%-10s %9s %7s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "errors", "p50", "p90", "p99", "p99.9", "max");
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            row(entry.getKey(), entry.getValue(), errors.apply(entry.getKey()));
+        }
+        row("all", all, totalErrors);
+    }
+
+    private static void row(String name, Histogram histogram, long errors) {
+        System.out.printf("%-10s %9d %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, histogram.getTotalCount(), errors,
+                millis(histogram, 50), millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9),
+                histogram.getMaxValue() / NANOS_PER_MILLI);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / NANOS_PER_MILLI;
+    }
+}
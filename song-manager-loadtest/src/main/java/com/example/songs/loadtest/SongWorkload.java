@@ -0,0 +1,103 @@
+package com.example.songs.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Requests against the {@code /songs} endpoints, chosen by the weights of {@code --mix}:
+ * <ul>
+ *     <li>{@code get}: {@code GET /songs/{id}} of a song picked by {@link ZipfianKeys}</li>
+ *     <li>{@code search}: {@code GET /songs/search} for an artist</li>
+ *     <li>{@code update}: unconditional {@code PUT /songs/{id}} of a picked song</li>
+ *     <li>{@code patch}: {@code PATCH /songs/{id}} of the year of a picked song</li>
+ *     <li>{@code create}: {@code POST /songs} of a new song</li>
+ * </ul>
+ * Created songs are not picked by later requests, so the key distribution stays fixed.
+ */
+final class SongWorkload {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final URI base;
+    private final ZipfianKeys keys;
+    private final String[] operations;
+    private final int[] cumulativeWeights;
+
+    SongWorkload(URI base, ZipfianKeys keys, Map<String, Integer> mix) {
+        this.base = base;
+        this.keys = keys;
+        this.operations = mix.keySet().toArray(new String[0]);
+        this.cumulativeWeights = new int[operations.length];
+        int sum = 0;
+        for (int i = 0; i < operations.length; i++) {
+            if (!isOperation(operations[i])) {
+                throw new IllegalArgumentException("Unknown operation in --mix: " + operations[i]);
+            }
+            sum += mix.get(operations[i]);
+            cumulativeWeights[i] = sum;
+        }
+    }
+
+    String[] operations() {
+        return operations.clone();
+    }
+
+    String nextOperation(ThreadLocalRandom random) {
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int i = 0;
+        while (cumulativeWeights[i] <= pick) {
+            i++;
+        }
+        return operations[i];
+    }
+
+    HttpRequest request(String operation, ThreadLocalRandom random) {
+        switch (operation) {
+            case "get":
+                return builder("/songs/" + keys.next(random)).GET().build();
+            case "search":
+                return builder("/songs/search?q=artist+" + random.nextInt(1000)).GET().build();
+            case "update":
+                return json(builder("/songs/" + keys.next(random)), "PUT", song(random));
+            case "patch":
+                return json(builder("/songs/" + keys.next(random)), "PATCH",
+                        "{\"year\":" + (1950 + random.nextInt(75)) + "}");
+            case "create":
+                return json(builder("/songs"), "POST", song(random));
+            default:
+                throw new IllegalArgumentException("Unknown operation: " + operation);
+        }
+    }
+
+    private HttpRequest.Builder builder(String path) {
+        return HttpRequest.newBuilder(base.resolve(path)).timeout(TIMEOUT);
+    }
+
+    private static HttpRequest json(HttpRequest.Builder builder, String method, String body) {
+        return builder.header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static String song(ThreadLocalRandom random) {
+        int i = random.nextInt(1_000_000);
+        return "{\"title\":\"Song " + i + "\",\"artist\":\"Artist " + i % 1000 + "\",\"album\":\"Album " + i % 5000
+                + "\",\"year\":" + (1950 + i % 75) + "}";
+    }
+
+    private static boolean isOperation(String operation) {
+        switch (operation) {
+            case "get":
+            case "search":
+            case "update":
+            case "patch":
+            case "create":
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.songs.loadtest;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks song ids with Zipfian popularity: the song of rank {@code r} is picked with
+ * probability proportional to {@code 1 / r^skew}. Ranks are assigned to ids in a fixed
+ * random order, so hot songs are spread over the id range instead of being its first rows.
+ */
+final class ZipfianKeys {
+
+    private final long[] ids;
+    private final double[] cumulative;
+
+    ZipfianKeys(long[] ids, double skew, long seed) {
+        this.ids = ids.clone();
+        Random random = new Random(seed);
+        for (int i = this.ids.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long id = this.ids[i];
+            this.ids[i] = this.ids[j];
+            this.ids[j] = id;
+        }
+        cumulative = new double[ids.length];
+        double sum = 0;
+        for (int rank = 0; rank < ids.length; rank++) {
+            sum += 1 / Math.pow(rank + 1, skew);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < ids.length; rank++) {
+            cumulative[rank] /= sum;
+        }
+    }
+
+    long next(ThreadLocalRandom random) {
+        int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+        if (rank < 0) {
+            rank = Math.min(-rank - 1, cumulative.length - 1);
+        }
+        return ids[rank];
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.songs;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Holds a response body back until it is complete or outgrows {@code threshold} bytes,
+ * ignoring flushes meanwhile. A body completed within the threshold is sent by
+ * {@link #finish} with its {@code Content-Length}, which is what lets the container
+ * compare it to {@code server.compression.min-response-size}. A larger one is streamed
+ * from then on, with unknown length, and compressed.
+ */
+public class SongBufferedOutputMessage implements HttpOutputMessage {
+    private final HttpOutputMessage target;
+    private final int threshold;
+    private final ByteArrayOutputStream buffer;
+    private final OutputStream body = new OutputStream() {
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (streaming == null && buffer.size() + len > threshold) {
+                streaming = target.getBody();
+                buffer.writeTo(streaming);
+            }
+            if (streaming != null) {
+                streaming.write(b, off, len);
+            } else {
+                buffer.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (streaming != null) {
+                streaming.flush();
+            }
+        }
+    };
+    private OutputStream streaming;
+
+    public SongBufferedOutputMessage(HttpOutputMessage target, int threshold) {
+        this.target = target;
+        this.threshold = threshold;
+        this.buffer = new ByteArrayOutputStream(Math.min(threshold, 8192));
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return target.getHeaders();
+    }
+
+    @Override
+    public OutputStream getBody() {
+        return body;
+    }
+
+    /** Sends a body that stayed within the threshold, with its length; a streamed one is already out. */
+    public void finish() throws IOException {
+        if (streaming == null) {
+            target.getHeaders().setContentLength(buffer.size());
+            buffer.writeTo(target.getBody());
+        }
+        target.getBody().flush();
+    }
+}
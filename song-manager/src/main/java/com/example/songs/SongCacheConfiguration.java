@@ -0,0 +1,92 @@
+package com.example.songs;
+
+import com.example.songs.model.Song;
+import com.example.songs.model.SongSingleFlight;
+import com.example.songs.model.StringCanonicalizer;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+@Configuration
+public class SongCacheConfiguration {
+
+    /**
+     * Ids known not to exist. Kept apart from "songs" so misses get their own, shorter
+     * TTL: rows written behind the application's back show up once it expires.
+     */
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> missingSongsCacheCustomizer(
+            @Value("${songs.cache.missing-songs-spec}") String spec) {
+        return cacheManager -> cacheManager.registerCustomCache("missingSongs", Caffeine.from(spec).build());
+    }
+
+    @Bean
+    public SongSingleFlight<Long, Song> songIdLoads() {
+        return new SongSingleFlight<>();
+    }
+
+    @Bean
+    public SongSingleFlight<String, Optional<Song>> songTitleLoads() {
+        return new SongSingleFlight<>();
+    }
+
+    /**
+     * JCache manager behind Hibernate's second-level cache, with one bounded region for
+     * {@link Song} entities and one for query results. The update-timestamps region is
+     * never evicted: losing an entry there would let stale query results through.
+     * Each application context gets its own manager so contexts never share regions.
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager songEntityCacheManager(@Value("${songs.cache.hibernate.entity-max-size}") long entityMaxSize,
+                                               @Value("${songs.cache.hibernate.entity-ttl}") Duration entityTtl,
+                                               @Value("${songs.cache.hibernate.query-max-size}") long queryMaxSize,
+                                               @Value("${songs.cache.hibernate.query-ttl}") Duration queryTtl,
+                                               @Value("${songs.cache.hibernate.statistics}") boolean statistics) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("songs-hibernate-" + UUID.randomUUID()), getClass().getClassLoader());
+        cacheManager.createCache(Song.class.getName(), region(entityMaxSize, entityTtl, statistics));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                region(queryMaxSize, queryTtl, statistics));
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                region(-1, null, statistics));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer songEntityCacheCustomizer(CacheManager songEntityCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, songEntityCacheManager);
+    }
+
+    /**
+     * The table artist and album names are canonicalized in, shared by the converter that
+     * reads them and the listener that writes them; Hibernate gets both from Spring.
+     */
+    @Bean
+    public StringCanonicalizer songStringCanonicalizer(@Value("${songs.strings.canonical-slots}") int slots) {
+        return new StringCanonicalizer(slots);
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(long maxSize, Duration ttl, boolean statistics) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(maxSize < 0 ? OptionalLong.empty() : OptionalLong.of(maxSize));
+        configuration.setExpireAfterWrite(ttl == null ? OptionalLong.empty() : OptionalLong.of(ttl.toNanos()));
+        configuration.setStatisticsEnabled(statistics);
+        return configuration;
+    }
+}
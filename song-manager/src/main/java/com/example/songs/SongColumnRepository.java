@@ -0,0 +1,472 @@
+package com.example.songs;
+
+import com.example.songs.model.Song;
+import com.example.songs.model.SongCatalogVersion;
+import com.example.songs.model.SongColumns;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.data.support.ExampleMatcherAccessor;
+import org.springframework.data.util.ClassTypeInformation;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import javax.persistence.EntityNotFoundException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Songs in {@link SongColumns} instead of JPA, for read-heavy nodes: no persistence
+ * context and no boxed ids on the lookup path. It has the methods of
+ * {@code SongRepository} with the same semantics, and
+ * serves that repository under the {@code columnar} profile, see
+ * {@link SongColumnarConfiguration}.
+ * <p>
+ * The catalog is copied from the database once at startup. Writes after that stay in
+ * memory. Queries by example and sorts on other properties than the id scan the store
+ * and follow the JPA semantics of the same calls.
+ */
+public class SongColumnRepository {
+    private static final int BATCH_SIZE = 1000;
+    private static final Map<String, Function<Song, Object>> PROPERTIES = Map.of(
+            "id", Song::getId,
+            "version", Song::getVersion,
+            "title", Song::getTitle,
+            "artist", Song::getArtist,
+            "album", Song::getAlbum,
+            "year", Song::getYear);
+
+    private final SongColumns columns = new SongColumns(1024);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Adds {@code songs}, ordered by id, to the store. */
+    public void load(Stream<Song> songs) {
+        List<Song> batch = new ArrayList<>(BATCH_SIZE);
+        songs.forEach(song -> {
+            batch.add(song);
+            if (batch.size() == BATCH_SIZE) {
+                putAll(batch);
+                batch.clear();
+            }
+        });
+        putAll(batch);
+    }
+
+    /** Size of the store and an estimate of its heap footprint per song. */
+    public Map<String, Number> getStats() {
+        lock.readLock().lock();
+        try {
+            long bytes = columns.estimatedBytes();
+            Map<String, Number> stats = new LinkedHashMap<>();
+            stats.put("songs", columns.size());
+            stats.put("estimatedBytes", bytes);
+            stats.put("bytesPerSong", columns.size() == 0 ? 0 : bytes / columns.size());
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Optional<Song> findById(Long id) {
+        return Optional.ofNullable(read(songs -> songs.get(id)));
+    }
+
+    public boolean existsById(Long id) {
+        return read(songs -> songs.contains(id));
+    }
+
+    public Song getById(Long id) {
+        return findById(id).orElseThrow(() -> new EntityNotFoundException("Song " + id));
+    }
+
+    @Deprecated
+    public Song getOne(Long id) {
+        return getById(id);
+    }
+
+    public Optional<Song> findFirstByTitle(String title) {
+        return Optional.ofNullable(read(songs -> songs.findFirstByTitle(title)));
+    }
+
+    public List<Song> findAll() {
+        return findByIdGreaterThanOrderByIdAsc(0L, Pageable.unpaged());
+    }
+
+    public List<Song> findAll(Sort sort) {
+        return sorted(findAll(), sort);
+    }
+
+    public Page<Song> findAll(Pageable pageable) {
+        return page(findAll(pageable.getSort()), pageable);
+    }
+
+    public List<Song> findAllById(Iterable<Long> ids) {
+        List<Song> songs = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Long id : ids) {
+                Song song = columns.get(id);
+                if (song != null) {
+                    songs.add(song);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return songs;
+    }
+
+    public List<Song> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable) {
+        int limit = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+        List<Song> songs = new ArrayList<>(Math.min(limit, 1024));
+        lock.readLock().lock();
+        try {
+            columns.forEachAfter(id, limit, songs::add);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return songs;
+    }
+
+    /**
+     * Reads the store {@value #BATCH_SIZE} songs at a time, holding the lock only while a
+     * batch is copied out, so memory stays flat and writers are not blocked while the
+     * caller consumes the stream. Like a database cursor, it may or may not see songs
+     * written while it is open.
+     */
+    public Stream<Song> streamAllByOrderByIdAsc() {
+        return Stream.iterate(findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, BATCH_SIZE)),
+                        batch -> !batch.isEmpty(),
+                        batch -> batch.size() < BATCH_SIZE ? List.of() : findByIdGreaterThanOrderByIdAsc(
+                                batch.get(batch.size() - 1).getId(), PageRequest.of(0, BATCH_SIZE)))
+                .flatMap(List::stream);
+    }
+
+    public List<Long> findExistingIds(Collection<Long> ids) {
+        List<Long> existing = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Long id : ids) {
+                if (columns.contains(id)) {
+                    existing.add(id);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return existing;
+    }
+
+    public SongCatalogVersion findCatalogVersion() {
+        return read(songs -> songs.size() == 0
+                ? new SongCatalogVersion(0L, null, null)
+                : new SongCatalogVersion((long) songs.size(), songs.getMaxId(), songs.getVersionSum()));
+    }
+
+    public long count() {
+        return read(SongColumns::size);
+    }
+
+    /**
+     * Assigns the next id to new songs and bumps the version of existing ones; a song
+     * whose version no longer matches the stored one fails like a stale JPA merge.
+     */
+    public <S extends Song> S save(S song) {
+        lock.writeLock().lock();
+        try {
+            return put(song);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public <S extends Song> List<S> saveAll(Iterable<S> songs) {
+        List<S> saved = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            for (S song : songs) {
+                saved.add(put(song));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return saved;
+    }
+
+    public <S extends Song> S saveAndFlush(S song) {
+        return save(song);
+    }
+
+    public <S extends Song> List<S> saveAllAndFlush(Iterable<S> songs) {
+        return saveAll(songs);
+    }
+
+    public void flush() {
+    }
+
+    public void deleteById(Long id) {
+        lock.writeLock().lock();
+        try {
+            columns.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void delete(Song song) {
+        deleteById(song.getId());
+    }
+
+    public void deleteAllById(Iterable<? extends Long> ids) {
+        lock.writeLock().lock();
+        try {
+            for (Long id : ids) {
+                columns.remove(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Long> deleteExistingByIdIn(Collection<Long> ids) {
+        List<Long> existing = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            for (Long id : ids) {
+                if (columns.remove(id)) {
+                    existing.add(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return existing;
+    }
+
+    public void deleteAllByIdInBatch(Iterable<Long> ids) {
+        deleteAllById(ids);
+    }
+
+    public void deleteAll(Iterable<? extends Song> songs) {
+        List<Long> ids = new ArrayList<>();
+        songs.forEach(song -> ids.add(song.getId()));
+        deleteAllById(ids);
+    }
+
+    public void deleteAllInBatch(Iterable<Song> songs) {
+        deleteAll(songs);
+    }
+
+    public void deleteAll() {
+        lock.writeLock().lock();
+        try {
+            columns.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void deleteAllInBatch() {
+        deleteAll();
+    }
+
+    /** Fails like the JPA query when more than one song matches. */
+    public <S extends Song> Optional<S> findOne(Example<S> example) {
+        List<S> songs = findAll(example, 2);
+        if (songs.size() > 1) {
+            throw new IncorrectResultSizeDataAccessException(1, songs.size());
+        }
+        return songs.stream().findFirst();
+    }
+
+    public <S extends Song> List<S> findAll(Example<S> example) {
+        return findAll(example, Integer.MAX_VALUE);
+    }
+
+    public <S extends Song> List<S> findAll(Example<S> example, Sort sort) {
+        return sorted(findAll(example), sort);
+    }
+
+    public <S extends Song> Page<S> findAll(Example<S> example, Pageable pageable) {
+        return page(findAll(example, pageable.getSort()), pageable);
+    }
+
+    public <S extends Song> long count(Example<S> example) {
+        return findAll(example).size();
+    }
+
+    public <S extends Song> boolean exists(Example<S> example) {
+        return !findAll(example, 1).isEmpty();
+    }
+
+    /**
+     * Up to {@code limit} songs matching {@code example}, in id order. The result type of
+     * an example query is the probe's type, which for this repository is always {@link Song}.
+     */
+    @SuppressWarnings("unchecked")
+    private <S extends Song> List<S> findAll(Example<S> example, int limit) {
+        Predicate<Song> matches = matcher(example);
+        List<S> songs = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            columns.forEachAfter(0L, Integer.MAX_VALUE, song -> {
+                if (songs.size() < limit && matches.test(song)) {
+                    songs.add((S) song);
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return songs;
+    }
+
+    private <S extends Song> S put(S song) {
+        long version = 0;
+        if (song.getId() == null || !columns.contains(song.getId())) {
+            song.setId(columns.getMaxId() + 1);
+        } else {
+            long stored = columns.version(song.getId());
+            if (song.getVersion() != stored) {
+                throw new ObjectOptimisticLockingFailureException(Song.class, song.getId());
+            }
+            version = stored + 1;
+        }
+        columns.put(song, version);
+        song.setVersion(version);
+        return song;
+    }
+
+    private void putAll(List<Song> songs) {
+        lock.writeLock().lock();
+        try {
+            for (Song song : songs) {
+                columns.put(song, song.getVersion());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private <T> T read(Function<SongColumns, T> query) {
+        lock.readLock().lock();
+        try {
+            return query.apply(columns);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static Function<Song, Object> property(String name) {
+        Function<Song, Object> property = PROPERTIES.get(name);
+        if (property == null) {
+            throw new PropertyReferenceException(name, ClassTypeInformation.from(Song.class), List.of());
+        }
+        return property;
+    }
+
+    /** Sorts {@code songs}, which are in id order, with nulls first unless {@code sort} says otherwise. */
+    private static <S extends Song> List<S> sorted(List<S> songs, Sort sort) {
+        Comparator<Song> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<Object> values = (a, b) -> compare(a, b, order.isIgnoreCase());
+            if (order.isDescending()) {
+                values = values.reversed();
+            }
+            boolean nullsLast = order.getNullHandling() == Sort.NullHandling.NULLS_LAST;
+            Comparator<Song> byProperty = Comparator.comparing(property(order.getProperty()),
+                    nullsLast ? Comparator.nullsLast(values) : Comparator.nullsFirst(values));
+            comparator = comparator == null ? byProperty : comparator.thenComparing(byProperty);
+        }
+        if (comparator != null) {
+            songs.sort(comparator);
+        }
+        return songs;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(Object a, Object b, boolean ignoreCase) {
+        if (ignoreCase && a instanceof String) {
+            return ((String) a).compareToIgnoreCase((String) b);
+        }
+        return ((Comparable<Object>) a).compareTo(b);
+    }
+
+    private static <S extends Song> Page<S> page(List<S> songs, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(songs);
+        }
+        int from = (int) Math.min(pageable.getOffset(), songs.size());
+        int to = Math.min(from + pageable.getPageSize(), songs.size());
+        return new PageImpl<>(new ArrayList<>(songs.subList(from, to)), pageable, songs.size());
+    }
+
+    /**
+     * The condition the JPA repository would build for {@code example}: every property of
+     * the probe takes part unless it is ignored or {@code null}, so primitive properties
+     * such as {@code year} and {@code version} always do.
+     */
+    private static Predicate<Song> matcher(Example<? extends Song> example) {
+        ExampleMatcherAccessor accessor = new ExampleMatcherAccessor(example.getMatcher());
+        List<Predicate<Song>> conditions = new ArrayList<>();
+        PROPERTIES.forEach((path, property) -> {
+            if (accessor.isIgnoredPath(path)) {
+                return;
+            }
+            Object expected = accessor.getValueTransformerForPath(path)
+                    .apply(Optional.ofNullable(property.apply(example.getProbe()))).orElse(null);
+            if (expected == null) {
+                if (accessor.getNullHandler() == ExampleMatcher.NullHandler.INCLUDE) {
+                    conditions.add(song -> property.apply(song) == null);
+                }
+            } else if (expected instanceof String) {
+                conditions.add(stringCondition(property, (String) expected,
+                        accessor.getStringMatcherForPath(path), accessor.isIgnoreCaseForPath(path)));
+            } else {
+                conditions.add(song -> expected.equals(property.apply(song)));
+            }
+        });
+        if (conditions.isEmpty()) {
+            return song -> true;
+        }
+        return example.getMatcher().isAllMatching()
+                ? song -> conditions.stream().allMatch(condition -> condition.test(song))
+                : song -> conditions.stream().anyMatch(condition -> condition.test(song));
+    }
+
+    private static Predicate<Song> stringCondition(Function<Song, Object> property, String expected,
+                                                   ExampleMatcher.StringMatcher mode, boolean ignoreCase) {
+        String value = ignoreCase ? expected.toLowerCase(Locale.ROOT) : expected;
+        Predicate<String> test;
+        if (mode == ExampleMatcher.StringMatcher.DEFAULT || mode == ExampleMatcher.StringMatcher.EXACT) {
+            test = value::equals;
+        } else if (mode == ExampleMatcher.StringMatcher.STARTING) {
+            test = actual -> actual.startsWith(value);
+        } else if (mode == ExampleMatcher.StringMatcher.ENDING) {
+            test = actual -> actual.endsWith(value);
+        } else if (mode == ExampleMatcher.StringMatcher.CONTAINING) {
+            test = actual -> actual.contains(value);
+        } else {
+            throw new IllegalArgumentException("Unsupported StringMatcher " + mode);
+        }
+        return song -> {
+            Object actual = property.apply(song);
+            return actual != null && test.test(ignoreCase ? ((String) actual).toLowerCase(Locale.ROOT) : (String) actual);
+        };
+    }
+}
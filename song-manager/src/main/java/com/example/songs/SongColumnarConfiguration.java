@@ -0,0 +1,129 @@
+package com.example.songs;
+
+import com.example.songs.model.Song;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.projection.DefaultMethodInvokingMethodInterceptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+/**
+ * The {@code columnar} profile: songs are served from a {@link SongColumnRepository}
+ * loaded from the database at startup. The store stays out of the repository layer;
+ * instead the {@code songRepository} bean is replaced by a proxy of the same interfaces
+ * that hands each call to the store's method of the same name and parameter types, or
+ * to the interface's default method. A repository method the store lacks fails the startup.
+ */
+@Configuration
+@Profile("columnar")
+public class SongColumnarConfiguration {
+    private static final String REPOSITORY = "songRepository";
+    private static final String LOAD_QUERY = "select s from Song s order by s.id";
+    private static final int FETCH_SIZE = 500;
+
+    @Bean
+    public SongColumnRepository songColumnRepository(EntityManager entityManager,
+                                                     PlatformTransactionManager transactionManager) {
+        SongColumnRepository store = new SongColumnRepository();
+        TransactionTemplate transactions = new TransactionTemplate(transactionManager);
+        transactions.setReadOnly(true);
+        transactions.executeWithoutResult(status -> {
+            try (Stream<Song> songs = entityManager.createQuery(LOAD_QUERY, Song.class)
+                    .setHint(HINT_FETCH_SIZE, FETCH_SIZE)
+                    .setHint(HINT_READONLY, true)
+                    .getResultStream()) {
+                store.load(songs.peek(entityManager::detach));
+            }
+        });
+        return store;
+    }
+
+    /**
+     * Runs ahead of the auto-proxy creator, so caching and transactions still apply to the
+     * replacement. Declared with its own type, which is how its priority is seen.
+     */
+    @Bean
+    public static ColumnRepositoryInstaller songColumnRepositoryInstaller(ObjectProvider<SongColumnRepository> store) {
+        return new ColumnRepositoryInstaller(store);
+    }
+
+    static class ColumnRepositoryInstaller implements BeanPostProcessor, PriorityOrdered {
+        private final ObjectProvider<SongColumnRepository> store;
+
+        ColumnRepositoryInstaller(ObjectProvider<SongColumnRepository> store) {
+            this.store = store;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!REPOSITORY.equals(beanName) || bean instanceof FactoryBean) {
+                return bean;
+            }
+            SongColumnRepository target = store.getObject();
+            Map<Method, Method> methods = new HashMap<>();
+            Class<?>[] interfaces = AopProxyUtils.proxiedUserInterfaces(bean);
+            for (Class<?> repository : interfaces) {
+                for (Method method : repository.getMethods()) {
+                    Method implementation = findImplementation(method, repository);
+                    if (implementation != null) {
+                        methods.put(method, implementation);
+                    } else if (!method.isDefault()) {
+                        throw new IllegalStateException("SongColumnRepository has no " + method);
+                    }
+                }
+            }
+            ProxyFactory proxy = new ProxyFactory(interfaces);
+            proxy.addAdvice((MethodInterceptor) invocation -> {
+                Method implementation = methods.get(invocation.getMethod());
+                if (implementation == null) {
+                    return invocation.proceed();
+                }
+                try {
+                    return implementation.invoke(target, invocation.getArguments());
+                } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                }
+            });
+            proxy.addAdvice(new DefaultMethodInvokingMethodInterceptor());
+            return proxy.getProxy(bean.getClass().getClassLoader());
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        /** The store's method for {@code method} once the repository's type variables are resolved, or {@code null}. */
+        private static Method findImplementation(Method method, Class<?> repository) {
+            Class<?>[] parameterTypes = new Class<?>[method.getParameterCount()];
+            for (int i = 0; i < parameterTypes.length; i++) {
+                parameterTypes[i] = ResolvableType.forMethodParameter(method, i, repository).resolve(Object.class);
+            }
+            try {
+                return SongColumnRepository.class.getMethod(method.getName(), parameterTypes);
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.songs;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandlerComposite;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Handles a {@link CompletableFuture} that is already done as if the controller had returned
+ * its value directly. In blocking mode the future completes on the request thread, so this
+ * skips the async dispatch Spring MVC would otherwise start. Pending futures are passed on
+ * to the regular async handling.
+ */
+public class SongCompletedFutureReturnValueHandler implements HandlerMethodReturnValueHandler {
+    private final HandlerMethodReturnValueHandlerComposite handlers = new HandlerMethodReturnValueHandlerComposite();
+
+    public SongCompletedFutureReturnValueHandler(List<HandlerMethodReturnValueHandler> handlers) {
+        this.handlers.addHandlers(handlers);
+    }
+
+    @Override
+    public boolean supportsReturnType(MethodParameter returnType) {
+        return CompletableFuture.class.isAssignableFrom(returnType.getParameterType());
+    }
+
+    @Override
+    public void handleReturnValue(Object returnValue, MethodParameter returnType,
+                                  ModelAndViewContainer mavContainer, NativeWebRequest webRequest) throws Exception {
+        CompletableFuture<?> future = (CompletableFuture<?>) returnValue;
+        if (future == null || !future.isDone()) {
+            handlers.handleReturnValue(returnValue, returnType, mavContainer, webRequest);
+            return;
+        }
+        Object value;
+        try {
+            value = future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+        handlers.handleReturnValue(value, new FutureValueParameter(returnType), mavContainer, webRequest);
+    }
+
+    /** The controller method's return type with the future's type argument in place of the future. */
+    private static class FutureValueParameter extends MethodParameter {
+        private final Type valueType;
+
+        FutureValueParameter(MethodParameter futureType) {
+            super(futureType);
+            this.valueType = ResolvableType.forMethodParameter(futureType).getGeneric().getType();
+        }
+
+        private FutureValueParameter(FutureValueParameter original) {
+            super(original);
+            this.valueType = original.valueType;
+        }
+
+        @Override
+        public Class<?> getParameterType() {
+            return ResolvableType.forType(valueType).resolve(Object.class);
+        }
+
+        @Override
+        public Type getGenericParameterType() {
+            return valueType;
+        }
+
+        @Override
+        public FutureValueParameter clone() {
+            return new FutureValueParameter(this);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.songs;
+
+import com.example.songs.model.SongBatchAbortedException;
+import com.example.songs.model.SongImportRunningException;
+import com.example.songs.model.SongNotFoundException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestControllerAdvice
+public class SongControllerAdvice {
+
+    @ExceptionHandler(SongNotFoundException.class)
+    public ResponseEntity<Map<String, Object>> handleNotFound(SongNotFoundException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of("error", "Song not found", "id", e.getSongId()));
+    }
+
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, Object>> handleStaleVersion(ObjectOptimisticLockingFailureException e) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(Map.of("error", "Song was modified concurrently", "id", String.valueOf(e.getIdentifier())));
+    }
+
+    /** A malformed row is the client's fault; either way the body says how many rows were kept. */
+    @ExceptionHandler(SongBatchAbortedException.class)
+    public ResponseEntity<Map<String, Object>> handleBatchAborted(SongBatchAbortedException e) {
+        HttpStatus status = e.getCause() instanceof HttpMessageNotReadableException
+                ? HttpStatus.BAD_REQUEST : HttpStatus.INTERNAL_SERVER_ERROR;
+        return ResponseEntity.status(status)
+                .body(Map.of("error", String.valueOf(e.getMessage()), "created", e.getCreated()));
+    }
+
+    @ExceptionHandler(SongImportRunningException.class)
+    public ResponseEntity<Map<String, Object>> handleImportRunning(SongImportRunningException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", "Import is already running", "id", e.getImportId()));
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Map<String, Object>> handleSaturated(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", "Too many concurrent song requests"));
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.songs;
+
+import com.example.songs.model.SongWriteBuffer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Chooses where the controller runs its database work, with {@code songs.execution.mode}:
+ * <ul>
+ *     <li>{@code blocking} (default) runs it on the Tomcat request thread, as before;</li>
+ *     <li>{@code async} hands it to a bounded JDBC executor and releases the request thread
+ *     while the work waits for a connection. A full queue is answered with 503. Its SQL
+ *     statements still count towards the request's {@code songs.http.statements}.</li>
+ * </ul>
+ * With {@code songs.write.mode=behind}, single-song writes are acknowledged from a
+ * {@link SongWriteBuffer} of {@code songs.write.queue-capacity} songs and stored in batches;
+ * a writer that finds it full for {@code songs.write.offer-timeout} is answered with 503.
+ */
+@Configuration
+public class SongExecutionConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "songs.execution.mode", havingValue = "blocking", matchIfMissing = true)
+    public Executor songJdbcExecutor() {
+        return Runnable::run;
+    }
+
+    @Bean(name = "songJdbcExecutor")
+    @ConditionalOnProperty(name = "songs.execution.mode", havingValue = "async")
+    public ThreadPoolTaskExecutor songAsyncJdbcExecutor(@Value("${songs.execution.jdbc-pool-size}") int poolSize,
+                                                        @Value("${songs.execution.queue-capacity}") int queueCapacity,
+                                                        ObjectProvider<SongStatementInspector> inspector) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("song-jdbc-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        inspector.ifAvailable(statements -> executor.setTaskDecorator(statements::propagateCount));
+        return executor;
+    }
+
+    /**
+     * Sends change feed events. A subscription has at most one task queued, so the queue is
+     * bounded by the number of subscribers.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor songChangeFeedExecutor(@Value("${songs.changes.pool-size}") int poolSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setThreadNamePrefix("song-changes-");
+        return executor;
+    }
+
+    /**
+     * Runs HTTP imports while their request bodies are read. There is no queue: an import
+     * beyond {@code songs.import.pool-size} would hold its connection open without
+     * progress, so it is answered with 503 instead.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor songImportExecutor(@Value("${songs.import.pool-size}") int poolSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("song-import-");
+        return executor;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "songs.write.mode", havingValue = "behind")
+    public SongWriteBuffer songWriteBuffer(@Value("${songs.write.queue-capacity}") int capacity) {
+        return new SongWriteBuffer(capacity);
+    }
+
+    @Bean
+    public static BeanPostProcessor songCompletedFutureHandlerRegistrar() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof RequestMappingHandlerAdapter) {
+                    RequestMappingHandlerAdapter adapter = (RequestMappingHandlerAdapter) bean;
+                    List<HandlerMethodReturnValueHandler> handlers = new ArrayList<>(adapter.getReturnValueHandlers());
+                    handlers.add(0, new SongCompletedFutureReturnValueHandler(adapter.getReturnValueHandlers()));
+                    adapter.setReturnValueHandlers(handlers);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -2,10 +2,12 @@ package com.example.songs;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
 
 @SpringBootApplication
+@EnableCaching
 public class SongManagerApplication {
     public static void main(String[] args) {
         SpringApplication.run(SongManagerApplication.class, args);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,57 @@
+package com.example.songs;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every public service method as {@code songs.service.method} and counts failures
+ * as {@code songs.service.errors}, both tagged by class, method and exception. Timers for
+ * the success path are cached per method so a call costs two {@code nanoTime} reads and
+ * one record.
+ */
+@Aspect
+public class SongMetricsAspect {
+    private final MeterRegistry registry;
+    private final Map<Method, Timer> successTimers = new ConcurrentHashMap<>();
+
+    public SongMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(public * com.example.songs.service..*.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        try {
+            Object result = joinPoint.proceed();
+            successTimers.computeIfAbsent(method, m -> timer(m, "none"))
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable e) {
+            String exception = e.getClass().getSimpleName();
+            timer(method, exception).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            registry.counter("songs.service.errors",
+                    "class", method.getDeclaringClass().getSimpleName(),
+                    "method", method.getName(),
+                    "exception", exception).increment();
+            throw e;
+        }
+    }
+
+    private Timer timer(Method method, String exception) {
+        return Timer.builder("songs.service.method")
+                .tag("class", method.getDeclaringClass().getSimpleName())
+                .tag("method", method.getName())
+                .tag("exception", exception)
+                .register(registry);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.songs;
+
+import com.example.songs.model.SongSingleFlight;
+import com.example.songs.model.SongWriteBuffer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot-path instrumentation on top of what Actuator already records (HTTP latency,
+ * repository invocations, Hikari connection acquire time, cache statistics).
+ * Switched off as a whole with {@code songs.metrics.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "songs.metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class SongMetricsConfiguration {
+
+    @Bean
+    public SongMetricsAspect songMetricsAspect(MeterRegistry registry) {
+        return new SongMetricsAspect(registry);
+    }
+
+    @Bean
+    public SongStatementInspector songStatementInspector(MeterRegistry registry) {
+        return new SongStatementInspector(registry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer songStatementInspectorCustomizer(SongStatementInspector inspector) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+    }
+
+    /** Loads run and loads answered by a concurrent caller's load, per single-flight lookup. */
+    @Bean
+    public MeterBinder songSingleFlightMetrics(Map<String, SongSingleFlight<?, ?>> singleFlights) {
+        return registry -> singleFlights.forEach((name, singleFlight) -> {
+            FunctionCounter.builder("songs.singleflight.loads", singleFlight, SongSingleFlight::getLoads)
+                    .tag("lookup", name)
+                    .register(registry);
+            FunctionCounter.builder("songs.singleflight.coalesced", singleFlight, SongSingleFlight::getCoalesced)
+                    .tag("lookup", name)
+                    .register(registry);
+        });
+    }
+
+    /** Depth of the write-behind buffer, writes coalesced into a pending one, and flush latency. */
+    @Bean
+    public MeterBinder songWriteBehindMetrics(ObjectProvider<SongWriteBuffer> writeBuffer) {
+        return registry -> writeBuffer.ifAvailable(buffer -> {
+            Gauge.builder("songs.writebehind.depth", buffer, SongWriteBuffer::size)
+                    .register(registry);
+            Gauge.builder("songs.writebehind.capacity", buffer, SongWriteBuffer::getCapacity)
+                    .register(registry);
+            FunctionCounter.builder("songs.writebehind.coalesced", buffer, SongWriteBuffer::getCoalesced)
+                    .register(registry);
+            FunctionCounter.builder("songs.writebehind.dropped", buffer, SongWriteBuffer::getDropped)
+                    .register(registry);
+            FunctionTimer.builder("songs.writebehind.flush", buffer, SongWriteBuffer::getFlushes,
+                            SongWriteBuffer::getFlushSeconds, TimeUnit.SECONDS)
+                    .register(registry);
+        });
+    }
+
+    @Bean
+    public SongStatementCountFilter songStatementCountFilter(SongStatementInspector inspector,
+                                                             MeterRegistry registry) {
+        return new SongStatementCountFilter(inspector, registry);
+    }
+}
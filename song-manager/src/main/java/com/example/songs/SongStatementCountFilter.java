@@ -0,0 +1,60 @@
+package com.example.songs;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records how many SQL statements each request executed as the
+ * {@code songs.http.statements} distribution, tagged by route. An async request keeps its
+ * count in a request attribute and is recorded when its async dispatch ends, after the
+ * work on the JDBC executor has added to it.
+ */
+public class SongStatementCountFilter extends OncePerRequestFilter {
+    private static final String COUNT_ATTRIBUTE = SongStatementCountFilter.class.getName() + ".count";
+
+    private final SongStatementInspector inspector;
+    private final MeterRegistry registry;
+
+    public SongStatementCountFilter(SongStatementInspector inspector, MeterRegistry registry) {
+        this.inspector = inspector;
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        AtomicInteger count = (AtomicInteger) request.getAttribute(COUNT_ATTRIBUTE);
+        if (count == null) {
+            count = new AtomicInteger();
+            request.setAttribute(COUNT_ATTRIBUTE, count);
+        }
+        AtomicInteger previous = inspector.countInto(count);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            inspector.countInto(previous);
+            if (!isAsyncStarted(request)) {
+                Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                DistributionSummary.builder("songs.http.statements")
+                        .tag("uri", route != null ? route.toString() : "UNKNOWN")
+                        .tag("method", request.getMethod())
+                        .register(registry)
+                        .record(count.get());
+            }
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.songs;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the SQL statements Hibernate prepares, in total as {@code songs.jdbc.statements}
+ * and per thread so that {@link SongStatementCountFilter} can attribute them to a request.
+ * A JDBC batch is prepared once and therefore counts as one statement. Work a request hands
+ * to an executor decorated with {@link #propagateCount} adds to the request's count.
+ */
+public class SongStatementInspector implements StatementInspector {
+    private final ThreadLocal<AtomicInteger> threadCount = ThreadLocal.withInitial(AtomicInteger::new);
+    private final Counter statements;
+
+    public SongStatementInspector(MeterRegistry registry) {
+        this.statements = registry.counter("songs.jdbc.statements");
+    }
+
+    @Override
+    public String inspect(String sql) {
+        threadCount.get().incrementAndGet();
+        statements.increment();
+        return sql;
+    }
+
+    public void resetThreadCount() {
+        threadCount.get().set(0);
+    }
+
+    public int getThreadCount() {
+        return threadCount.get().get();
+    }
+
+    /** Counts the statements this thread runs from now on into {@code count}, and returns the count used before. */
+    public AtomicInteger countInto(AtomicInteger count) {
+        AtomicInteger previous = threadCount.get();
+        threadCount.set(count);
+        return previous;
+    }
+
+    /** A {@code TaskDecorator}: {@code task} counts its statements into the count of the thread submitting it. */
+    public Runnable propagateCount(Runnable task) {
+        AtomicInteger count = threadCount.get();
+        return () -> {
+            AtomicInteger previous = countInto(count);
+            try {
+                task.run();
+            } finally {
+                countInto(previous);
+            }
+        };
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.songs;
+
+import com.example.songs.model.Song;
+import com.example.songs.model.SongCsv;
+import com.example.songs.model.SongStream;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a {@link SongStream} one song at a time as a JSON array, newline-delimited JSON,
+ * CSV, a CBOR or Smile array, or columnar JSON, so the response never holds more than the
+ * song currently being serialized. Columnar JSON names the columns once and then writes
+ * every song as an array of values:
+ * <pre>{"columns":["id","title","artist","album","year","version"],"rows":[[1,"Imagine","John Lennon","Imagine",1971,0]]}</pre>
+ * Up to {@code bufferSize} bytes are held back, so a short stream is sent whole with its
+ * length; see {@link SongBufferedOutputMessage}. When the response carries
+ * {@code Content-Encoding: gzip} the body is compressed on the way out instead. Request
+ * bodies in any format but columnar JSON are parsed just as lazily.
+ */
+public class SongStreamHttpMessageConverter extends AbstractHttpMessageConverter<SongStream> {
+    public static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+    public static final MediaType COLUMNAR_JSON = new MediaType("application", "vnd.songs.columnar+json");
+    private static final String[] COLUMNS = {"id", "title", "artist", "album", "year", "version"};
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ObjectReader songReader;
+    private final ObjectWriter songWriter;
+    private final ObjectReader cborReader;
+    private final ObjectWriter cborWriter;
+    private final ObjectReader smileReader;
+    private final ObjectWriter smileWriter;
+    private final int bufferSize;
+
+    public SongStreamHttpMessageConverter(ObjectMapper objectMapper) {
+        this(objectMapper, new ObjectMapper(new CBORFactory()), new ObjectMapper(new SmileFactory()), 0);
+    }
+
+    /** {@code cborMapper} and {@code smileMapper} are configured like {@code objectMapper} but for their formats. */
+    public SongStreamHttpMessageConverter(ObjectMapper objectMapper, ObjectMapper cborMapper, ObjectMapper smileMapper,
+                                          int bufferSize) {
+        super(MediaType.APPLICATION_JSON, MediaType.APPLICATION_NDJSON, TEXT_CSV, MediaType.APPLICATION_CBOR,
+                APPLICATION_SMILE, COLUMNAR_JSON);
+        this.songReader = objectMapper.readerFor(Song.class);
+        this.songWriter = songWriter(objectMapper);
+        this.cborReader = cborMapper.readerFor(Song.class);
+        this.cborWriter = songWriter(cborMapper);
+        this.smileReader = smileMapper.readerFor(Song.class);
+        this.smileWriter = songWriter(smileMapper);
+        this.bufferSize = bufferSize;
+    }
+
+    private static ObjectWriter songWriter(ObjectMapper mapper) {
+        return mapper.writerFor(Song.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return SongStream.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return (mediaType == null || !COLUMNAR_JSON.isCompatibleWith(mediaType)) && super.canRead(mediaType);
+    }
+
+    @Override
+    protected SongStream readInternal(Class<? extends SongStream> clazz, HttpInputMessage inputMessage)
+            throws IOException {
+        MediaType contentType = inputMessage.getHeaders().getContentType();
+        if (contentType != null && TEXT_CSV.isCompatibleWith(contentType)) {
+            return readCsv(inputMessage, contentType);
+        }
+        ObjectReader reader = songReader;
+        if (contentType != null && MediaType.APPLICATION_CBOR.isCompatibleWith(contentType)) {
+            reader = cborReader;
+        } else if (contentType != null && APPLICATION_SMILE.isCompatibleWith(contentType)) {
+            reader = smileReader;
+        }
+        MappingIterator<Song> songs = reader.readValues(inputMessage.getBody());
+        return new SongStream(action -> {
+            try {
+                while (songs.hasNextValue()) {
+                    action.accept(songs.nextValue());
+                }
+            } catch (JsonProcessingException e) {
+                throw new HttpMessageNotReadableException("Malformed song: " + e.getOriginalMessage(), e, inputMessage);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static SongStream readCsv(HttpInputMessage inputMessage, MediaType contentType) throws IOException {
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        SongStream songs = SongCsv.read(new BufferedReader(new InputStreamReader(inputMessage.getBody(), charset), BUFFER_SIZE));
+        return new SongStream(action -> {
+            try {
+                songs.forEach(action);
+            } catch (IllegalArgumentException e) {
+                throw new HttpMessageNotReadableException("Malformed song: " + e.getMessage(), e, inputMessage);
+            }
+        });
+    }
+
+    @Override
+    protected void writeInternal(SongStream songs, HttpOutputMessage outputMessage) throws IOException {
+        MediaType contentType = outputMessage.getHeaders().getContentType();
+        boolean gzip = "gzip".equalsIgnoreCase(outputMessage.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        SongBufferedOutputMessage buffered = gzip ? null : new SongBufferedOutputMessage(outputMessage, bufferSize);
+        OutputStream body = gzip ? new GZIPOutputStream(outputMessage.getBody(), BUFFER_SIZE) : buffered.getBody();
+        if (contentType != null && TEXT_CSV.isCompatibleWith(contentType)) {
+            writeCsv(songs, body);
+        } else if (contentType != null && MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)) {
+            writeJson(songs, body, songWriter, false);
+        } else if (contentType != null && MediaType.APPLICATION_CBOR.isCompatibleWith(contentType)) {
+            writeJson(songs, body, cborWriter, true);
+        } else if (contentType != null && APPLICATION_SMILE.isCompatibleWith(contentType)) {
+            writeJson(songs, body, smileWriter, true);
+        } else if (contentType != null && COLUMNAR_JSON.isCompatibleWith(contentType)) {
+            writeColumnar(songs, body);
+        } else {
+            writeJson(songs, body, songWriter, true);
+        }
+        if (gzip) {
+            ((GZIPOutputStream) body).finish();
+            body.flush();
+        } else {
+            buffered.finish();
+        }
+    }
+
+    private static void writeJson(SongStream songs, OutputStream body, ObjectWriter writer, boolean array)
+            throws IOException {
+        JsonGenerator generator = writer.createGenerator(body);
+        if (array) {
+            generator.writeStartArray();
+        } else {
+            generator.setRootValueSeparator(new SerializedString("\n"));
+        }
+        long[] written = {0};
+        songs.forEach(song -> {
+            try {
+                writer.writeValue(generator, song);
+                written[0]++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        if (array) {
+            generator.writeEndArray();
+        } else if (written[0] > 0) {
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+    }
+
+    private void writeColumnar(SongStream songs, OutputStream body) throws IOException {
+        JsonGenerator generator = songWriter.createGenerator(body);
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("columns");
+        for (String column : COLUMNS) {
+            generator.writeString(column);
+        }
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("rows");
+        songs.forEach(song -> {
+            try {
+                generator.writeStartArray();
+                if (song.getId() != null) {
+                    generator.writeNumber(song.getId());
+                } else {
+                    generator.writeNull();
+                }
+                generator.writeString(song.getTitle());
+                generator.writeString(song.getArtist());
+                generator.writeString(song.getAlbum());
+                generator.writeNumber(song.getYear());
+                generator.writeNumber(song.getVersion());
+                generator.writeEndArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    private static void writeCsv(SongStream songs, OutputStream body) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8), BUFFER_SIZE);
+        SongCsv.writeHeader(writer);
+        songs.forEach(song -> {
+            try {
+                SongCsv.write(writer, song);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+    }
+}
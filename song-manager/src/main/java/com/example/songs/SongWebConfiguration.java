@@ -0,0 +1,83 @@
+package com.example.songs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Every response can be negotiated as JSON, CBOR ({@code application/cbor}) or Smile
+ * ({@code application/x-jackson-smile}). The binary formats use mappers from the same
+ * builder as the JSON one, so {@code spring.jackson.*} settings apply to all three.
+ * <p>
+ * Each of them, and the {@link SongStreamHttpMessageConverter}, writes through a
+ * {@link SongBufferedOutputMessage} of {@code server.compression.min-response-size}, so
+ * a response below that size is sent whole with its length and left uncompressed.
+ */
+@Configuration
+public class SongWebConfiguration implements WebMvcConfigurer {
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper cborMapper;
+    private final ObjectMapper smileMapper;
+    private final int bufferSize;
+
+    public SongWebConfiguration(ObjectMapper objectMapper, Jackson2ObjectMapperBuilder builder,
+                                @Value("${server.compression.min-response-size:2KB}") DataSize minResponseSize) {
+        this.objectMapper = objectMapper;
+        this.cborMapper = builder.cbor().build();
+        this.smileMapper = builder.smile().build();
+        this.bufferSize = (int) minResponseSize.toBytes();
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.replaceAll(converter -> {
+            if (converter instanceof MappingJackson2HttpMessageConverter) {
+                return new MappingJackson2HttpMessageConverter(objectMapper) {
+                    @Override
+                    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+                            throws IOException {
+                        SongBufferedOutputMessage buffered = new SongBufferedOutputMessage(outputMessage, bufferSize);
+                        super.writeInternal(object, type, buffered);
+                        buffered.finish();
+                    }
+                };
+            }
+            if (converter instanceof MappingJackson2CborHttpMessageConverter) {
+                return new MappingJackson2CborHttpMessageConverter(cborMapper) {
+                    @Override
+                    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+                            throws IOException {
+                        SongBufferedOutputMessage buffered = new SongBufferedOutputMessage(outputMessage, bufferSize);
+                        super.writeInternal(object, type, buffered);
+                        buffered.finish();
+                    }
+                };
+            }
+            if (converter instanceof MappingJackson2SmileHttpMessageConverter) {
+                return new MappingJackson2SmileHttpMessageConverter(smileMapper) {
+                    @Override
+                    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+                            throws IOException {
+                        SongBufferedOutputMessage buffered = new SongBufferedOutputMessage(outputMessage, bufferSize);
+                        super.writeInternal(object, type, buffered);
+                        buffered.finish();
+                    }
+                };
+            }
+            return converter;
+        });
+        converters.add(0, new SongStreamHttpMessageConverter(objectMapper, cborMapper, smileMapper, bufferSize));
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.songs.controller;
+
+import com.example.songs.model.SongChangeSubscription;
+import com.example.songs.service.SongChangeFeedService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+
+/**
+ * Server-Sent Events stream of song changes. Each event is named after the change type,
+ * carries the change as JSON and its sequence number as the event id, so a client that
+ * reconnects with {@code Last-Event-ID} (or {@code ?since=}) continues where it left off.
+ * A {@code resync} event means changes were missed: the client reloads {@code GET /songs}
+ * and reconnects from the sequence number it carries. Streams end after
+ * {@code songs.changes.timeout}, and clients reconnect.
+ */
+@RestController
+@RequestMapping("/songs/changes")
+public class SongChangeController {
+    private final SongChangeFeedService service;
+    private final Duration timeout;
+
+    public SongChangeController(SongChangeFeedService service, @Value("${songs.changes.timeout}") Duration timeout) {
+        this.service = service;
+        this.timeout = timeout;
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter changes(@RequestParam(required = false) Long since,
+                              @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        SongChangeSubscription subscription = service.subscribe(since != null ? since : lastEventId, change -> {
+            emitter.send(SseEmitter.event()
+                    .id(Long.toString(change.getSequence()))
+                    .name(change.getType())
+                    .data(change, MediaType.APPLICATION_JSON));
+            if (change.isResync()) {
+                emitter.complete();
+            }
+        });
+        emitter.onCompletion(() -> service.unsubscribe(subscription));
+        emitter.onTimeout(() -> service.unsubscribe(subscription));
+        emitter.onError(e -> service.unsubscribe(subscription));
+        return emitter;
+    }
+}
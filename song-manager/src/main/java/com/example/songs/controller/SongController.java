@@ -1,44 +1,274 @@
 package com.example.songs.controller;
 
 import com.example.songs.model.Song;
+import com.example.songs.model.SongCatalogVersion;
+import com.example.songs.model.SongPage;
+import com.example.songs.model.SongPatch;
+import com.example.songs.model.SongSearchResult;
+import com.example.songs.model.SongStream;
+import com.example.songs.service.SongSearchService;
 import com.example.songs.service.SongService;
+import com.example.songs.service.SongStatsService;
+import com.example.songs.service.SongSuggestService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @RestController
 @RequestMapping("/songs")
 public class SongController {
+    private static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+    private static final Pattern STRONG_TAG = Pattern.compile("\"(\\d{1,18})(?:-cbor|-smile)?\"");
+
     private final SongService service;
+    private final SongSuggestService suggestService;
+    private final SongSearchService searchService;
+    private final SongStatsService statsService;
+    private final Executor jdbcExecutor;
+    private final int maxPageSize;
+    private final int maxBatchIds;
+    private final int inListSize;
 
-    public SongController(SongService service) {
+    public SongController(SongService service, SongSuggestService suggestService, SongSearchService searchService,
+                          SongStatsService statsService, @Qualifier("songJdbcExecutor") Executor jdbcExecutor,
+                          @Value("${songs.page.max-size}") int maxPageSize,
+                          @Value("${songs.batch.max-ids}") int maxBatchIds,
+                          @Value("${songs.batch.in-list-size}") int inListSize) {
         this.service = service;
+        this.suggestService = suggestService;
+        this.searchService = searchService;
+        this.statsService = statsService;
+        this.jdbcExecutor = jdbcExecutor;
+        this.maxPageSize = maxPageSize;
+        this.maxBatchIds = maxBatchIds;
+        this.inListSize = inListSize;
     }
 
+    /**
+     * The tag is derived from the catalog watermark, so a matching {@code If-None-Match}
+     * is answered with 304 after one aggregate query and without reading any song. The body
+     * is JSON, CBOR, Smile or columnar JSON by {@code Accept}, and may be gzipped, so the tag
+     * is weak and caches have to key on {@code Accept}.
+     */
     @GetMapping
-    public List<Song> getAll() {
-        return service.getAllSongs();
+    public ResponseEntity<SongStream> getAll() {
+        SongCatalogVersion version = service.getCatalogVersion();
+        return ResponseEntity.ok()
+                .eTag("W/\"catalog-" + version.toTag() + "\"")
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(new SongStream(service::forEachSong));
+    }
+
+    /**
+     * The whole catalog as NDJSON or CSV, chosen by {@code Accept}. Rows come from the
+     * forward-only cursor behind {@link SongService#forEachSong} and are written as they
+     * are read, so memory stays flat and a slow client slows the cursor down with it.
+     */
+    @GetMapping(value = "/export", produces = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv;charset=UTF-8"})
+    public ResponseEntity<SongStream> export(@RequestParam(defaultValue = "false") boolean gzip) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(new SongStream(service::forEachSong));
+    }
+
+    @GetMapping("/page")
+    public SongPage getPage(@RequestParam(required = false) String cursor,
+                            @RequestParam(defaultValue = "${songs.page.default-size}") int size) {
+        try {
+            return service.getSongPage(cursor, Math.max(1, Math.min(size, maxPageSize)));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping("/suggest")
+    public List<String> suggest(@RequestParam String prefix, @RequestParam(defaultValue = "10") int limit) {
+        return suggestService.suggest(prefix, Math.max(1, Math.min(limit, maxPageSize)));
+    }
+
+    @GetMapping("/search")
+    public SongSearchResult search(@RequestParam String q,
+                                   @RequestParam(defaultValue = "0") int page,
+                                   @RequestParam(defaultValue = "20") int size) {
+        return searchService.search(q, Math.max(0, page), Math.max(1, Math.min(size, maxPageSize)));
+    }
+
+    @GetMapping("/search/stats")
+    public Map<String, Number> searchStats() {
+        return searchService.getStats();
+    }
+
+    @GetMapping("/by-title")
+    public ResponseEntity<Song> getByTitle(@RequestParam String title) {
+        return ResponseEntity.of(service.getSongByTitle(title));
+    }
+
+    @GetMapping("/stats/by-artist")
+    public Map<String, Long> countByArtist() {
+        return statsService.countByArtist();
+    }
+
+    @GetMapping("/stats/by-album")
+    public Map<String, Long> countByAlbum() {
+        return statsService.countByAlbum();
+    }
+
+    @GetMapping("/stats/by-year")
+    public Map<Integer, Long> countByYear() {
+        return statsService.countByYear();
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Song> getById(@PathVariable Long id) {
-        return ResponseEntity.ok(service.getSongById(id));
+    public CompletableFuture<ResponseEntity<Song>> getById(@PathVariable Long id,
+                                                           @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        String format = format(accept);
+        return CompletableFuture.supplyAsync(() -> {
+            Song song = service.getSongById(id);
+            return ResponseEntity.ok().eTag(etag(song, format)).varyBy(HttpHeaders.ACCEPT).body(song);
+        }, jdbcExecutor);
     }
 
     @PostMapping
-    public ResponseEntity<Song> create(@RequestBody Song song) {
-        return ResponseEntity.status(201).body(service.createSong(song));
+    public CompletableFuture<ResponseEntity<Song>> create(@RequestBody Song song) {
+        return CompletableFuture.supplyAsync(() -> ResponseEntity.status(201).body(service.createSong(song)), jdbcExecutor);
+    }
+
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<Map<String, Long>> createBatch(@RequestBody SongStream songs,
+                                                         @RequestParam(defaultValue = "${songs.batch.chunk-size}") int chunkSize) {
+        long created = service.createSongs(songs, Math.max(1, chunkSize));
+        return ResponseEntity.status(201).body(Map.of("created", created));
+    }
+
+    @PostMapping("/get-batch")
+    public Map<Long, Song> getBatch(@RequestBody List<Long> ids) {
+        checkBatchSize(ids);
+        try {
+            return service.getSongsByIds(ids, inListSize);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @PostMapping("/delete-batch")
+    public Map<Long, Boolean> deleteBatch(@RequestBody List<Long> ids) {
+        checkBatchSize(ids);
+        try {
+            return service.deleteSongs(ids, inListSize);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
     @PutMapping("/{id}")
-    public Song update(@PathVariable Long id, @RequestBody Song song) {
-        return service.updateSong(id, song);
+    public CompletableFuture<ResponseEntity<Song>> update(@PathVariable Long id, @RequestBody Song song,
+                                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                          @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        Long expectedVersion = expectedVersion(ifMatch);
+        String format = format(accept);
+        return CompletableFuture.supplyAsync(() -> {
+            Song updated = service.updateSong(id, song, expectedVersion);
+            return ResponseEntity.ok().eTag(etag(updated, format)).varyBy(HttpHeaders.ACCEPT).body(updated);
+        }, jdbcExecutor);
+    }
+
+    /**
+     * Without {@code If-Match} the patched song is returned. With it the patch is only applied
+     * to the tagged version and answered with 204 and the new tag.
+     */
+    @PatchMapping("/{id}")
+    public CompletableFuture<ResponseEntity<Song>> patch(@PathVariable Long id, @RequestBody SongPatch patch,
+                                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                         @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        Long expectedVersion = expectedVersion(ifMatch);
+        String format = format(accept);
+        return CompletableFuture.supplyAsync(() -> {
+            if (expectedVersion == null) {
+                Song patched = service.patchSong(id, patch);
+                return ResponseEntity.ok().eTag(etag(patched, format)).varyBy(HttpHeaders.ACCEPT).body(patched);
+            }
+            Song patched = service.patchSongAtVersion(id, patch, expectedVersion);
+            return ResponseEntity.noContent().eTag(etag(patched, "")).<Song>build();
+        }, jdbcExecutor);
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@PathVariable Long id) {
-        service.deleteSong(id);
-        return ResponseEntity.noContent().build();
+    public CompletableFuture<ResponseEntity<Void>> delete(@PathVariable Long id) {
+        return CompletableFuture.supplyAsync(() -> {
+            service.deleteSong(id);
+            return ResponseEntity.noContent().<Void>build();
+        }, jdbcExecutor);
+    }
+
+    private void checkBatchSize(List<Long> ids) {
+        if (ids.size() > maxBatchIds) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "At most " + maxBatchIds + " ids per request");
+        }
+    }
+
+    /**
+     * Strong, so a client can send it back in {@code If-Match}: the version, with a suffix
+     * for CBOR and Smile bodies, which differ byte for byte from the JSON one.
+     */
+    private static String etag(Song song, String format) {
+        return "\"" + song.getVersion() + format + "\"";
+    }
+
+    /** The tag suffix for the body {@code accept} negotiates: none for JSON, the default. */
+    private static String format(String accept) {
+        if (accept == null) {
+            return "";
+        }
+        try {
+            List<MediaType> types = MediaType.parseMediaTypes(accept);
+            MediaType.sortBySpecificityAndQuality(types);
+            for (MediaType type : types) {
+                if (type.getQualityValue() == 0) {
+                    continue;
+                }
+                if (type.includes(MediaType.APPLICATION_JSON)) {
+                    return "";
+                }
+                if (type.includes(MediaType.APPLICATION_CBOR)) {
+                    return "-cbor";
+                }
+                if (type.includes(APPLICATION_SMILE)) {
+                    return "-smile";
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            // Rejected by content negotiation.
+        }
+        return "";
+    }
+
+    /**
+     * The version a strong {@code If-Match} tag names, or {@code null} without one. A weak
+     * tag never matches, as If-Match compares strongly (RFC 7232, section 3.1).
+     */
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Matcher tag = STRONG_TAG.matcher(ifMatch.trim());
+        if (!tag.matches()) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Not a strong song tag: " + ifMatch);
+        }
+        return Long.valueOf(tag.group(1));
     }
-}
\ No newline at end of file
+}
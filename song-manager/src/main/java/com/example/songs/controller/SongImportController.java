@@ -0,0 +1,75 @@
+package com.example.songs.controller;
+
+import com.example.songs.model.SongImport;
+import com.example.songs.model.SongStream;
+import com.example.songs.service.SongImportService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Bulk import over HTTP. The import is created before its body is parsed and answered
+ * right away with {@code 202 Accepted}, its {@code Location} and its queued state, so a
+ * client can follow its progress, or resume it under the same {@code importId}, while
+ * the records are still being read on the {@code songImportExecutor}. The response ends
+ * when the import does, within {@code songs.import.timeout}. An import the executor
+ * turns away is marked failed before the request is answered with 503, and an id that
+ * is still queued or running is answered with 409.
+ */
+@RestController
+@RequestMapping("/songs/import")
+public class SongImportController {
+    private final SongImportService service;
+    private final Executor importExecutor;
+    private final Duration timeout;
+
+    public SongImportController(SongImportService service,
+                                @Qualifier("songImportExecutor") Executor importExecutor,
+                                @Value("${songs.import.timeout}") Duration timeout) {
+        this.service = service;
+        this.importExecutor = importExecutor;
+        this.timeout = timeout;
+    }
+
+    @PostMapping(consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<ResponseBodyEmitter> importSongs(@RequestBody SongStream songs,
+                                                          @RequestParam(required = false) String importId,
+                                                          @RequestParam(defaultValue = "${songs.batch.chunk-size}") int chunkSize)
+            throws IOException {
+        SongImport queued = service.queueImport(importId != null ? importId : UUID.randomUUID().toString());
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(timeout.toMillis());
+        emitter.send(queued, MediaType.APPLICATION_JSON);
+        try {
+            importExecutor.execute(() -> {
+                try {
+                    service.importSongs(queued.getId(), songs, Math.max(1, chunkSize));
+                } catch (RuntimeException e) {
+                    // Recorded on the import as failed, and logged.
+                } finally {
+                    emitter.complete();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            service.failQueuedImport(queued.getId());
+            throw e;
+        }
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequestUri().path("/{id}").buildAndExpand(queued.getId()).toUri())
+                .body(emitter);
+    }
+
+    @GetMapping("/{importId}")
+    public ResponseEntity<SongImport> getImport(@PathVariable String importId) {
+        return ResponseEntity.of(service.getImport(importId));
+    }
+}
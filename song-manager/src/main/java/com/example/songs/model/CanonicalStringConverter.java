@@ -0,0 +1,29 @@
+package com.example.songs.model;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Canonicalizes the artist and album of every loaded {@link Song}, so entities and the
+ * second-level cache entries built from them share one copy of each repeated name.
+ * Hibernate asks Spring for the converter, which hands it the application's
+ * {@link StringCanonicalizer}.
+ */
+@Converter
+public class CanonicalStringConverter implements AttributeConverter<String, String> {
+    private final StringCanonicalizer names;
+
+    public CanonicalStringConverter(StringCanonicalizer names) {
+        this.names = names;
+    }
+
+    @Override
+    public String convertToDatabaseColumn(String value) {
+        return value;
+    }
+
+    @Override
+    public String convertToEntityAttribute(String value) {
+        return names.canonicalize(value);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.songs.model;
+
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+
+/**
+ * Canonicalizes the artist and album of a {@link Song} before it is written, so a song
+ * built from a request or an import shares names with loaded ones once it is cached.
+ * Obtained from Spring like {@link CanonicalStringConverter}, with the same table.
+ */
+public class CanonicalStringListener {
+    private final StringCanonicalizer names;
+
+    public CanonicalStringListener(StringCanonicalizer names) {
+        this.names = names;
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void canonicalize(Song song) {
+        song.setArtist(names.canonicalize(song.getArtist()));
+        song.setAlbum(names.canonicalize(song.getAlbum()));
+    }
+}
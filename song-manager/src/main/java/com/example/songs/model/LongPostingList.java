@@ -0,0 +1,59 @@
+package com.example.songs.model;
+
+import java.util.Arrays;
+
+/**
+ * Sorted set of song ids backed by a growable {@code long[]}, so inverted-index
+ * posting lists cost eight bytes per entry instead of a boxed {@code Long} each.
+ * Not thread-safe; callers guard it.
+ */
+public class LongPostingList {
+
+    private long[] ids = new long[1];
+    private int size;
+
+    public boolean add(long id) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index >= 0) {
+            return false;
+        }
+        int insertAt = -index - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        ids[insertAt] = id;
+        size++;
+        return true;
+    }
+
+    public boolean remove(long id) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        size--;
+        if (ids.length > 4 && size < ids.length / 4) {
+            ids = Arrays.copyOf(ids, ids.length / 2);
+        }
+        return true;
+    }
+
+    public long get(int index) {
+        return ids[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Approximate heap footprint: object header, array header and the id slots. */
+    public long estimatedBytes() {
+        return 24 + 16 + 8L * ids.length;
+    }
+}
@@ -1,16 +1,34 @@
 package com.example.songs.model;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+
 import javax.persistence.*;
 import java.util.Objects;
 
 @Entity
+@EntityListeners(CanonicalStringListener.class)
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(indexes = {
+        @Index(name = "idx_song_title", columnList = "title"),
+        @Index(name = "idx_song_artist", columnList = "artist")
+})
 public class Song {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "song_seq")
+    @SequenceGenerator(name = "song_seq", sequenceName = "song_seq", allocationSize = 50)
     private Long id;
 
+    @Version
+    private long version;
+
     private String title;
+    @Convert(converter = CanonicalStringConverter.class)
     private String artist;
+    @Convert(converter = CanonicalStringConverter.class)
     private String album;
     private int year;
 
@@ -63,6 +81,14 @@ public class Song {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
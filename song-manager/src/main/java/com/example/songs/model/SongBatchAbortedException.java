@@ -0,0 +1,21 @@
+package com.example.songs.model;
+
+/**
+ * Thrown when a batch insert stops part way, because a row could not be read or a chunk
+ * could not be saved. The chunks before it stay committed; {@link #getCreated()} says how
+ * many rows that is, so a client can resume the batch after them.
+ */
+public class SongBatchAbortedException extends RuntimeException {
+
+    private final long created;
+
+    public SongBatchAbortedException(long created, RuntimeException cause) {
+        super(cause.getMessage(), cause);
+        this.created = created;
+    }
+
+    /** Rows committed before the failure, which are the first rows of the batch. */
+    public long getCreated() {
+        return created;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.songs.model;
+
+/**
+ * Watermark of the whole catalog: row count, highest id and the sum of all row versions.
+ * Inserts raise the highest id, deletes lower the count and updates raise the version sum,
+ * so any change to the table produces a different watermark.
+ */
+public class SongCatalogVersion {
+    private final long count;
+    private final long maxId;
+    private final long versionSum;
+
+    public SongCatalogVersion(Long count, Long maxId, Long versionSum) {
+        this.count = count == null ? 0 : count;
+        this.maxId = maxId == null ? 0 : maxId;
+        this.versionSum = versionSum == null ? 0 : versionSum;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMaxId() {
+        return maxId;
+    }
+
+    public long getVersionSum() {
+        return versionSum;
+    }
+
+    /** Compact token suitable as an entity tag value. */
+    public String toTag() {
+        return Long.toString(count, 36) + "-" + Long.toString(maxId, 36) + "-" + Long.toString(versionSum, 36);
+    }
+}
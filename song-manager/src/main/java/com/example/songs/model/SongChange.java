@@ -0,0 +1,45 @@
+package com.example.songs.model;
+
+/**
+ * One entry of the change feed: a {@link SongChangeEvent} numbered in the order it was
+ * recorded. A {@code resync} entry tells a subscriber that it has fallen behind the
+ * retained changes and has to reload the catalog.
+ */
+public class SongChange {
+
+    private final long sequence;
+    private final String type;
+    private final Long songId;
+    private final Song song;
+
+    public SongChange(long sequence, String type, Long songId, Song song) {
+        this.sequence = sequence;
+        this.type = type;
+        this.songId = songId;
+        this.song = song;
+    }
+
+    public static SongChange resync(long sequence) {
+        return new SongChange(sequence, "resync", null, null);
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Long getSongId() {
+        return songId;
+    }
+
+    public Song getSong() {
+        return song;
+    }
+
+    public boolean isResync() {
+        return "resync".equals(type);
+    }
+}
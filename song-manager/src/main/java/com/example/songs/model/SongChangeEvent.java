@@ -0,0 +1,49 @@
+package com.example.songs.model;
+
+/**
+ * Published by the service layer for every song write, so that in-memory views of the
+ * catalog can follow along without re-reading the table. Listeners receive it once the
+ * write's transaction has committed, or straight away when it ran outside one; a write
+ * that rolls back is never seen.
+ */
+public class SongChangeEvent {
+
+    private final String type;
+    private final Long songId;
+    private final Song song;
+
+    private SongChangeEvent(String type, Long songId, Song song) {
+        this.type = type;
+        this.songId = songId;
+        this.song = song;
+    }
+
+    public static SongChangeEvent created(Song song) {
+        return new SongChangeEvent("created", null, song);
+    }
+
+    public static SongChangeEvent updated(Song song) {
+        return new SongChangeEvent("updated", null, song);
+    }
+
+    public static SongChangeEvent deleted(Long songId) {
+        return new SongChangeEvent("deleted", songId, null);
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Long getSongId() {
+        return song != null ? song.getId() : songId;
+    }
+
+    /** The song as it is now, or {@code null} when it was deleted. */
+    public Song getSong() {
+        return song;
+    }
+
+    public boolean isDeleted() {
+        return "deleted".equals(type);
+    }
+}
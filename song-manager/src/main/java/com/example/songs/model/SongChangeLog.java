@@ -0,0 +1,47 @@
+package com.example.songs.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ring buffer of the most recent {@link SongChange}s, numbered from 1 in the order they
+ * were appended. It holds at most {@code capacity} changes, however far behind its
+ * readers are; a reader that falls further behind gets {@link SongChangesExpiredException}.
+ * Sequence numbers start over when the process restarts.
+ */
+public class SongChangeLog {
+
+    private final SongChange[] ring;
+    private long lastSequence;
+
+    public SongChangeLog(int capacity) {
+        ring = new SongChange[capacity];
+    }
+
+    public synchronized SongChange append(SongChangeEvent event) {
+        SongChange change = new SongChange(++lastSequence, event.getType(), event.getSongId(), event.getSong());
+        ring[(int) (change.getSequence() % ring.length)] = change;
+        return change;
+    }
+
+    /**
+     * Up to {@code max} changes following {@code sequence}, oldest first. Fails when changes
+     * after {@code sequence} have already been overwritten, or when {@code sequence} is
+     * newer than any change, as after a restart.
+     */
+    public synchronized List<SongChange> readAfter(long sequence, int max) {
+        long oldest = Math.max(1, lastSequence - ring.length + 1);
+        if (sequence < oldest - 1 || sequence > lastSequence) {
+            throw new SongChangesExpiredException(sequence, lastSequence);
+        }
+        List<SongChange> changes = new ArrayList<>((int) Math.min(max, lastSequence - sequence));
+        for (long next = sequence + 1; next <= lastSequence && changes.size() < max; next++) {
+            changes.add(ring[(int) (next % ring.length)]);
+        }
+        return changes;
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.songs.model;
+
+import java.io.IOException;
+
+/** Receives the changes of one change feed subscription, in sequence order. */
+@FunctionalInterface
+public interface SongChangeSink {
+
+    void accept(SongChange change) throws IOException;
+}
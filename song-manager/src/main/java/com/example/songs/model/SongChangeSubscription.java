@@ -0,0 +1,50 @@
+package com.example.songs.model;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A change feed subscriber's position: the sequence number of the last change delivered
+ * to its sink. Costs a few fields however far behind it is; undelivered changes stay in
+ * the shared {@link SongChangeLog}.
+ */
+public class SongChangeSubscription {
+
+    private final SongChangeSink sink;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile long sequence;
+    private volatile boolean closed;
+
+    public SongChangeSubscription(long sequence, SongChangeSink sink) {
+        this.sequence = sequence;
+        this.sink = sink;
+    }
+
+    public SongChangeSink getSink() {
+        return sink;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    /** Claims delivery for the caller; {@code false} if another thread is already delivering. */
+    public boolean startDraining() {
+        return !closed && draining.compareAndSet(false, true);
+    }
+
+    public void stopDraining() {
+        draining.set(false);
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public void close() {
+        closed = true;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.songs.model;
+
+/**
+ * Thrown when changes are requested after a sequence number the {@link SongChangeLog}
+ * no longer retains, or never issued. Like {@link SongNotFoundException} it is an
+ * expected outcome and skips stack-trace capture.
+ */
+public class SongChangesExpiredException extends RuntimeException {
+
+    private final long lastSequence;
+
+    public SongChangesExpiredException(long sequence, long lastSequence) {
+        super("Changes after " + sequence + " are no longer retained", null, false, false);
+        this.lastSequence = lastSequence;
+    }
+
+    /** The newest sequence number, from which a subscriber can continue after reloading. */
+    public long getLastSequence() {
+        return lastSequence;
+    }
+}
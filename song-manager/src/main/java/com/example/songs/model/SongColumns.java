@@ -0,0 +1,213 @@
+package com.example.songs.model;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Songs stored column by column in primitive arrays, one row per song, ordered by id.
+ * Artists and albums are dictionary encoded, titles are kept as they are, and a
+ * {@link LongIntHashMap} maps ids to rows. Lookups materialize a fresh {@link Song};
+ * none is kept between calls.
+ * <p>
+ * Deleted rows keep their id as a tombstone, so the id column stays sorted for range
+ * scans, and are compacted away once they make up half of the table.
+ * Not thread-safe; callers guard it.
+ */
+public class SongColumns {
+    private static final long DELETED = -1;
+
+    private long[] ids;
+    private long[] versions;
+    private String[] titles;
+    private int[] artists;
+    private int[] albums;
+    private int[] years;
+    private int rows;
+    private int deleted;
+    private long maxId;
+    private final LongIntHashMap rowsById;
+    private final StringDictionary artistDictionary = new StringDictionary();
+    private final StringDictionary albumDictionary = new StringDictionary();
+
+    public SongColumns(int expectedSize) {
+        int capacity = Math.max(16, expectedSize);
+        ids = new long[capacity];
+        versions = new long[capacity];
+        titles = new String[capacity];
+        artists = new int[capacity];
+        albums = new int[capacity];
+        years = new int[capacity];
+        rowsById = new LongIntHashMap(capacity);
+    }
+
+    public int size() {
+        return rows - deleted;
+    }
+
+    public long getMaxId() {
+        return maxId;
+    }
+
+    public long getVersionSum() {
+        long sum = 0;
+        for (int row = 0; row < rows; row++) {
+            if (versions[row] != DELETED) {
+                sum += versions[row];
+            }
+        }
+        return sum;
+    }
+
+    public boolean contains(long id) {
+        return rowsById.get(id, -1) >= 0;
+    }
+
+    /** The stored version of song {@code id}, or {@code -1} when there is no such song. */
+    public long version(long id) {
+        int row = rowsById.get(id, -1);
+        return row < 0 ? DELETED : versions[row];
+    }
+
+    public Song get(long id) {
+        int row = rowsById.get(id, -1);
+        return row < 0 ? null : song(row);
+    }
+
+    /** The first song, in id order, whose title equals {@code title}. Scans the title column. */
+    public Song findFirstByTitle(String title) {
+        for (int row = 0; row < rows; row++) {
+            if (versions[row] != DELETED && title.equals(titles[row])) {
+                return song(row);
+            }
+        }
+        return null;
+    }
+
+    /** Hands up to {@code limit} songs with an id greater than {@code afterId} to {@code action}, in id order. */
+    public void forEachAfter(long afterId, int limit, Consumer<Song> action) {
+        int index = Arrays.binarySearch(ids, 0, rows, afterId);
+        int count = 0;
+        for (int row = index < 0 ? -index - 1 : index + 1; row < rows && count < limit; row++) {
+            if (versions[row] != DELETED) {
+                action.accept(song(row));
+                count++;
+            }
+        }
+    }
+
+    /** Stores {@code song} under its id with the given version, replacing any previous row. */
+    public void put(Song song, long version) {
+        long id = song.getId();
+        int row = rowsById.get(id, -1);
+        if (row < 0) {
+            row = insertRow(id);
+        }
+        versions[row] = version;
+        titles[row] = song.getTitle();
+        artists[row] = artistDictionary.encode(song.getArtist());
+        albums[row] = albumDictionary.encode(song.getAlbum());
+        years[row] = song.getYear();
+        maxId = Math.max(maxId, id);
+    }
+
+    public boolean remove(long id) {
+        int row = rowsById.get(id, -1);
+        if (row < 0) {
+            return false;
+        }
+        rowsById.remove(id);
+        versions[row] = DELETED;
+        titles[row] = null;
+        deleted++;
+        if (deleted > 1024 && deleted * 2 > rows) {
+            compact();
+        }
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(titles, 0, rows, null);
+        rows = 0;
+        deleted = 0;
+        rowsById.clear();
+    }
+
+    /** Approximate heap footprint of the columns, the id index and the dictionaries. */
+    public long estimatedBytes() {
+        long bytes = 96 + 6 * 16L + (8L + 8 + 4 + 4 + 4 + 4) * ids.length;
+        for (int row = 0; row < rows; row++) {
+            if (titles[row] != null) {
+                bytes += 40 + titles[row].length();
+            }
+        }
+        return bytes + rowsById.estimatedBytes() + artistDictionary.estimatedBytes() + albumDictionary.estimatedBytes();
+    }
+
+    private Song song(int row) {
+        Song song = new Song(titles[row], artistDictionary.decode(artists[row]), albumDictionary.decode(albums[row]), years[row]);
+        song.setId(ids[row]);
+        song.setVersion(versions[row]);
+        return song;
+    }
+
+    /** Appends a row for {@code id}, or reuses its tombstone; ids below the last row shift the rows after them. */
+    private int insertRow(long id) {
+        int row = Arrays.binarySearch(ids, 0, rows, id);
+        if (row >= 0) {
+            deleted--;
+        } else {
+            row = -row - 1;
+            if (rows == ids.length) {
+                resize(ids.length * 2);
+            }
+            int moved = rows - row;
+            System.arraycopy(ids, row, ids, row + 1, moved);
+            System.arraycopy(versions, row, versions, row + 1, moved);
+            System.arraycopy(titles, row, titles, row + 1, moved);
+            System.arraycopy(artists, row, artists, row + 1, moved);
+            System.arraycopy(albums, row, albums, row + 1, moved);
+            System.arraycopy(years, row, years, row + 1, moved);
+            rows++;
+            for (int shifted = row + 1; shifted < rows; shifted++) {
+                if (versions[shifted] != DELETED) {
+                    rowsById.put(ids[shifted], shifted);
+                }
+            }
+            ids[row] = id;
+        }
+        rowsById.put(id, row);
+        return row;
+    }
+
+    private void compact() {
+        int live = 0;
+        for (int row = 0; row < rows; row++) {
+            if (versions[row] == DELETED) {
+                continue;
+            }
+            ids[live] = ids[row];
+            versions[live] = versions[row];
+            titles[live] = titles[row];
+            artists[live] = artists[row];
+            albums[live] = albums[row];
+            years[live] = years[row];
+            rowsById.put(ids[live], live);
+            live++;
+        }
+        Arrays.fill(titles, live, rows, null);
+        rows = live;
+        deleted = 0;
+        if (ids.length > 16 && rows < ids.length / 4) {
+            resize(ids.length / 2);
+        }
+    }
+
+    private void resize(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        versions = Arrays.copyOf(versions, capacity);
+        titles = Arrays.copyOf(titles, capacity);
+        artists = Arrays.copyOf(artists, capacity);
+        albums = Arrays.copyOf(albums, capacity);
+        years = Arrays.copyOf(years, capacity);
+    }
+}
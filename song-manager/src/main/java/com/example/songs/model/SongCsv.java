@@ -0,0 +1,168 @@
+package com.example.songs.model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * RFC 4180 CSV with the columns {@code id,title,artist,album,year}, as written by the
+ * export and accepted by the import. Fields are quoted only when they contain a
+ * separator, a quote or a line break, so a record may span several lines.
+ */
+public class SongCsv {
+    private static final String HEADER = "id,title,artist,album,year";
+    private static final String LINE_END = "\r\n";
+    private static final int PARSE_BATCH_SIZE = 4096;
+
+    private SongCsv() {
+    }
+
+    public static void writeHeader(Writer writer) throws IOException {
+        writer.write(HEADER);
+        writer.write(LINE_END);
+    }
+
+    public static void write(Writer writer, Song song) throws IOException {
+        if (song.getId() != null) {
+            writer.write(Long.toString(song.getId()));
+        }
+        writer.write(',');
+        writeField(writer, song.getTitle());
+        writer.write(',');
+        writeField(writer, song.getArtist());
+        writer.write(',');
+        writeField(writer, song.getAlbum());
+        writer.write(',');
+        writer.write(Integer.toString(song.getYear()));
+        writer.write(LINE_END);
+    }
+
+    /**
+     * Reads records from {@code reader} in batches and parses each batch across the common
+     * fork-join pool, handing the songs on in file order. Splitting the input into records
+     * is sequential since it depends on quote state; turning records into songs is not.
+     * A leading header line is skipped and blank lines are ignored. A malformed record
+     * fails with {@link IllegalArgumentException}.
+     */
+    public static SongStream read(BufferedReader reader) {
+        return new SongStream(action -> {
+            try {
+                List<String> batch = new ArrayList<>(PARSE_BATCH_SIZE);
+                String record = readRecord(reader);
+                if (record != null && record.equalsIgnoreCase(HEADER)) {
+                    record = readRecord(reader);
+                }
+                while (record != null) {
+                    if (!record.isEmpty()) {
+                        batch.add(record);
+                    }
+                    if (batch.size() == PARSE_BATCH_SIZE) {
+                        parse(batch).forEach(action);
+                        batch.clear();
+                    }
+                    record = readRecord(reader);
+                }
+                parse(batch).forEach(action);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public static Song parse(String record) {
+        List<String> fields = new ArrayList<>(5);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        if (fields.size() != 5) {
+            throw new IllegalArgumentException("Expected 5 CSV fields but got " + fields.size() + ": " + record);
+        }
+        try {
+            Song song = new Song(fields.get(1), fields.get(2), fields.get(3), Integer.parseInt(fields.get(4).trim()));
+            if (!fields.get(0).isBlank()) {
+                song.setId(Long.valueOf(fields.get(0).trim()));
+            }
+            return song;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in CSV record: " + record);
+        }
+    }
+
+    private static List<Song> parse(List<String> records) {
+        return records.parallelStream().map(SongCsv::parse).collect(Collectors.toList());
+    }
+
+    /** Next record without its line terminator, joining lines while a quoted field is open. */
+    private static String readRecord(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        int quotes = countQuotes(line);
+        if (quotes % 2 == 0) {
+            return line;
+        }
+        StringBuilder record = new StringBuilder(line);
+        while (quotes % 2 == 1) {
+            String next = reader.readLine();
+            if (next == null) {
+                throw new IllegalArgumentException("Unterminated quoted field in CSV record: " + record);
+            }
+            record.append('\n').append(next);
+            quotes += countQuotes(next);
+        }
+        return record.toString();
+    }
+
+    private static int countQuotes(String line) {
+        int quotes = 0;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == '"') {
+                quotes++;
+            }
+        }
+        return quotes;
+    }
+
+    private static void writeField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.songs.model;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.Instant;
+
+/**
+ * Progress of one import, committed together with every chunk of songs. An import run
+ * again under the same id skips the first {@code recordsRead} records, which is where
+ * its last committed chunk ended.
+ */
+@Entity
+public class SongImport {
+
+    @Id
+    private String id;
+
+    private String status;
+    private long recordsRead;
+    private long songsCreated;
+    private long duplicatesSkipped;
+    private Instant startedAt;
+    private Instant updatedAt;
+
+    public SongImport() {}
+
+    public SongImport(String id) {
+        this.id = id;
+        this.status = "running";
+        this.startedAt = Instant.now();
+        this.updatedAt = startedAt;
+    }
+
+    public void advance(long recordsRead, long songsCreated, long duplicatesSkipped) {
+        this.recordsRead = recordsRead;
+        this.songsCreated += songsCreated;
+        this.duplicatesSkipped += duplicatesSkipped;
+        this.updatedAt = Instant.now();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+        this.updatedAt = Instant.now();
+    }
+
+    public long getRecordsRead() {
+        return recordsRead;
+    }
+
+    public long getSongsCreated() {
+        return songsCreated;
+    }
+
+    public long getDuplicatesSkipped() {
+        return duplicatesSkipped;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.songs.model;
+
+/**
+ * Thrown when an import is queued or run under an id that is already queued or running
+ * in this process. Like {@link SongNotFoundException} it is an expected outcome and skips
+ * stack-trace capture.
+ */
+public class SongImportRunningException extends RuntimeException {
+
+    private final String importId;
+
+    public SongImportRunningException(String importId) {
+        super("Import " + importId + " is already running", null, false, false);
+        this.importId = importId;
+    }
+
+    public String getImportId() {
+        return importId;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.songs.model;
+
+/**
+ * Thrown when no song has the requested id. Misses are an expected outcome rather than
+ * a bug, so the exception skips stack-trace capture and costs no more than a hit.
+ */
+public class SongNotFoundException extends RuntimeException {
+
+    private final Long songId;
+
+    public SongNotFoundException(Long songId) {
+        super("Song not found: " + songId, null, false, false);
+        this.songId = songId;
+    }
+
+    public Long getSongId() {
+        return songId;
+    }
+}
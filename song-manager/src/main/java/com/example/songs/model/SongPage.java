@@ -0,0 +1,41 @@
+package com.example.songs.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * One keyset page of songs ordered by id. {@code nextCursor} is an opaque token
+ * for the following page and is {@code null} on the last one.
+ */
+public class SongPage {
+
+    private final List<Song> items;
+    private final String nextCursor;
+
+    public SongPage(List<Song> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Song> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public static String encodeCursor(long lastSeenId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(lastSeenId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static long decodeCursor(String cursor) {
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.songs.model;
+
+/**
+ * A partial song update: fields left {@code null} are not changed.
+ */
+public class SongPatch {
+
+    private String title;
+    private String artist;
+    private String album;
+    private Integer year;
+
+    public SongPatch() {}
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getArtist() {
+        return artist;
+    }
+
+    public void setArtist(String artist) {
+        this.artist = artist;
+    }
+
+    public String getAlbum() {
+        return album;
+    }
+
+    public void setAlbum(String album) {
+        this.album = album;
+    }
+
+    public Integer getYear() {
+        return year;
+    }
+
+    public void setYear(Integer year) {
+        this.year = year;
+    }
+
+    /** Copies the fields present in this patch onto {@code song} and returns it. */
+    public Song applyTo(Song song) {
+        if (title != null) {
+            song.setTitle(title);
+        }
+        if (artist != null) {
+            song.setArtist(artist);
+        }
+        if (album != null) {
+            song.setAlbum(album);
+        }
+        if (year != null) {
+            song.setYear(year);
+        }
+        return song;
+    }
+}
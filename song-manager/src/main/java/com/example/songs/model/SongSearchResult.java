@@ -0,0 +1,37 @@
+package com.example.songs.model;
+
+import java.util.List;
+
+/**
+ * One page of full-text search hits, best match first.
+ */
+public class SongSearchResult {
+
+    private final List<Song> items;
+    private final long total;
+    private final int page;
+    private final int size;
+
+    public SongSearchResult(List<Song> items, long total, int page, int size) {
+        this.items = items;
+        this.total = total;
+        this.page = page;
+        this.size = size;
+    }
+
+    public List<Song> getItems() {
+        return items;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+}
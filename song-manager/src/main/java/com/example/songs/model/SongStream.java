@@ -0,0 +1,20 @@
+package com.example.songs.model;
+
+import java.util.function.Consumer;
+
+/**
+ * A one-shot source of songs that is consumed element by element instead of
+ * being collected into a list first.
+ */
+public class SongStream {
+
+    private final Consumer<Consumer<Song>> source;
+
+    public SongStream(Consumer<Consumer<Song>> source) {
+        this.source = source;
+    }
+
+    public void forEach(Consumer<Song> action) {
+        source.accept(action);
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.songs.model;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded queue of acknowledged but not yet written songs, keyed by id so that a
+ * second write to a pending song replaces the first instead of queueing behind it.
+ * Writes stay visible through {@link #get} until {@link #complete} confirms them.
+ * A full buffer makes new writers wait, which is the backpressure on ingest.
+ */
+public class SongWriteBuffer {
+
+    private final int capacity;
+    private final Map<Long, Song> pending = new LinkedHashMap<>();
+    private final Set<Long> inserts = new HashSet<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition batchReady = lock.newCondition();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private int batchSize = Integer.MAX_VALUE;
+    private boolean closed;
+
+    public SongWriteBuffer(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Queues {@code song}, an insert of a new row or an update of an existing one. Waits up
+     * to {@code timeout} for room unless the song is already pending, and returns whether
+     * it was queued.
+     */
+    public boolean offer(Song song, boolean insert, long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (!pending.containsKey(song.getId()) && pending.size() >= capacity) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            if (pending.put(song.getId(), song) != null) {
+                coalesced.increment();
+            }
+            if (insert) {
+                inserts.add(song.getId());
+            }
+            if (pending.size() >= batchSize) {
+                batchReady.signal();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** The pending write for {@code id}, or {@code null}. */
+    public Song get(Long id) {
+        lock.lock();
+        try {
+            return pending.get(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Whether the pending write for {@code id} creates its row. */
+    public boolean isInsert(Long id) {
+        lock.lock();
+        try {
+            return inserts.contains(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until {@code max} writes are pending or {@code timeout} has passed, and returns
+     * up to {@code max} of the oldest. They stay pending until {@link #complete}. Returns
+     * at once after {@link #close}.
+     */
+    public List<Song> awaitBatch(int max, long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            batchSize = max;
+            while (!closed && pending.size() < max && nanos > 0) {
+                nanos = batchReady.awaitNanos(nanos);
+            }
+            return drain(max);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Up to {@code max} of the oldest pending writes, without waiting. They stay pending until {@link #complete}. */
+    public List<Song> drain(int max) {
+        lock.lock();
+        try {
+            List<Song> batch = new ArrayList<>(Math.min(max, pending.size()));
+            for (Song song : pending.values()) {
+                if (batch.size() == max) {
+                    break;
+                }
+                batch.add(song);
+            }
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks {@code written} as stored. A song replaced while it was being written stays
+     * pending, now as an update of the row that exists.
+     */
+    public void complete(List<Song> written, long elapsedNanos) {
+        lock.lock();
+        try {
+            for (Song song : written) {
+                inserts.remove(song.getId());
+                if (pending.get(song.getId()) == song) {
+                    pending.remove(song.getId());
+                }
+            }
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        flushes.increment();
+        flushNanos.add(elapsedNanos);
+    }
+
+    /**
+     * Gives up on {@code failed}, writes the database refused. A song replaced while it was
+     * being written stays pending, as an insert if the failed write was one.
+     */
+    public void drop(List<Song> failed) {
+        lock.lock();
+        try {
+            for (Song song : failed) {
+                if (pending.get(song.getId()) == song) {
+                    pending.remove(song.getId());
+                    inserts.remove(song.getId());
+                }
+            }
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        dropped.add(failed.size());
+    }
+
+    /** Wakes a writer waiting in {@link #awaitBatch}; later calls do not wait. */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            batchReady.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    public long getFlushes() {
+        return flushes.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public double getFlushSeconds() {
+        return flushNanos.sum() / 1e9;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.songs.model;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UTFDataFormatException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Append-only file of acknowledged write-behind songs, so that writes still in the
+ * {@link SongWriteBuffer} when the process dies can be stored on the next start. Each
+ * record is handed to the operating system before {@link #append} returns, which
+ * survives the process but not the machine losing power. A record cut short by a crash
+ * ends the journal.
+ */
+public class SongWriteJournal implements AutoCloseable {
+
+    private final Path file;
+    private final FileOutputStream fileOut;
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(record);
+
+    public SongWriteJournal(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.file = file;
+        this.fileOut = new FileOutputStream(file.toFile(), true);
+    }
+
+    public synchronized void append(Song song) {
+        try {
+            record.reset();
+            out.writeLong(song.getId());
+            out.writeLong(song.getVersion());
+            writeNullable(song.getTitle());
+            writeNullable(song.getArtist());
+            writeNullable(song.getAlbum());
+            out.writeInt(song.getYear());
+            record.writeTo(fileOut);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** The journaled songs, the latest version of each, in the order they were first written. */
+    public synchronized Collection<Song> replay() {
+        Map<Long, Song> songs = new LinkedHashMap<>();
+        try (InputStream file = Files.newInputStream(this.file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file))) {
+            while (true) {
+                Song song = new Song();
+                song.setId(in.readLong());
+                song.setVersion(in.readLong());
+                song.setTitle(readNullable(in));
+                song.setArtist(readNullable(in));
+                song.setAlbum(readNullable(in));
+                song.setYear(in.readInt());
+                songs.merge(song.getId(), song, (a, b) -> a.getVersion() >= b.getVersion() ? a : b);
+            }
+        } catch (EOFException | UTFDataFormatException torn) {
+            return songs.values();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Forgets every record, once all of them are stored. */
+    public synchronized void truncate() {
+        try {
+            fileOut.getChannel().truncate(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        fileOut.close();
+    }
+
+    private void writeNullable(String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.songs.model;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Lossy, bounded string interner: a fixed table of weak references indexed by hash.
+ * An equal string found in its slot is returned instead of the argument; otherwise the
+ * argument takes the slot, evicting whatever shared it. The table never grows and holds
+ * nothing strongly, so strings that fall out of use are collected. Concurrent callers
+ * may race on a slot, which at worst costs a missed deduplication.
+ */
+public class StringCanonicalizer {
+
+    private final WeakReference<String>[] slots;
+    private final int mask;
+
+    /** {@code size} is rounded up to a power of two; {@code 0} disables canonicalization. */
+    @SuppressWarnings("unchecked")
+    public StringCanonicalizer(int size) {
+        int capacity = size <= 0 ? 0 : Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+        slots = new WeakReference[capacity];
+        mask = capacity - 1;
+    }
+
+    public String canonicalize(String value) {
+        if (value == null || slots.length == 0) {
+            return value;
+        }
+        int hash = value.hashCode() * 0x9E3779B9;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        WeakReference<String> reference = slots[slot];
+        String canonical = reference == null ? null : reference.get();
+        if (value.equals(canonical)) {
+            return canonical;
+        }
+        slots[slot] = new WeakReference<>(value);
+        return value;
+    }
+}
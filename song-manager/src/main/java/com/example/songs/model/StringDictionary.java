@@ -0,0 +1,48 @@
+package com.example.songs.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary encoding for repetitive strings: each distinct value is stored once and
+ * referred to by an {@code int} code. Codes are never reused, so a value no longer
+ * referenced stays in the dictionary. {@code null} is encoded as {@code -1}.
+ * Not thread-safe; callers guard it.
+ */
+public class StringDictionary {
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    public int encode(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    public String decode(int code) {
+        return code < 0 ? null : values.get(code);
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    /** Approximate heap footprint: one map entry, one list slot and the string per value. */
+    public long estimatedBytes() {
+        long bytes = 64;
+        for (String value : values) {
+            bytes += 32 + 16 + 4 + 40 + value.length();
+        }
+        return bytes;
+    }
+}
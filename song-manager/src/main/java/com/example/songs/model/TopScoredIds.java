@@ -0,0 +1,85 @@
+package com.example.songs.model;
+
+/**
+ * Keeps the best {@code capacity} of the (id, score) pairs offered to it in a bounded
+ * binary heap over primitive arrays, so ranking n hits for one page costs O(n log k) time
+ * and O(k) memory instead of boxing and sorting all of them. A higher score ranks first
+ * and ties go to the lower id. Not thread-safe.
+ */
+public class TopScoredIds {
+
+    private final long[] ids;
+    private final int[] scores;
+    private int size;
+
+    public TopScoredIds(int capacity) {
+        ids = new long[capacity];
+        scores = new int[capacity];
+    }
+
+    public void offer(long id, int score) {
+        if (size < ids.length) {
+            ids[size] = id;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (size > 0 && ranksBelow(ids[0], scores[0], id, score)) {
+            ids[0] = id;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    /** The kept ids, best first. Empties the heap. */
+    public long[] drainBestFirst() {
+        long[] best = new long[size];
+        for (int i = best.length - 1; i >= 0; i--) {
+            best[i] = ids[0];
+            size--;
+            ids[0] = ids[size];
+            scores[0] = scores[size];
+            siftDown(0);
+        }
+        return best;
+    }
+
+    /** The root holds the worst kept pair, so a better newcomer replaces it. */
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!ranksBelow(ids[index], scores[index], ids[parent], scores[parent])) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int worst = index;
+            for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+                if (ranksBelow(ids[child], scores[child], ids[worst], scores[worst])) {
+                    worst = child;
+                }
+            }
+            if (worst == index) {
+                return;
+            }
+            swap(index, worst);
+            index = worst;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        int score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+
+    private static boolean ranksBelow(long id, int score, long otherId, int otherScore) {
+        return score < otherScore || (score == otherScore && id > otherId);
+    }
+}
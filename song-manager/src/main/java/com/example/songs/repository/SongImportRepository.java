@@ -0,0 +1,7 @@
+package com.example.songs.repository;
+
+import com.example.songs.model.SongImport;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface SongImportRepository extends JpaRepository<SongImport, String> {
+}
@@ -1,10 +1,55 @@
 package com.example.songs.repository;
 
 import com.example.songs.model.Song;
+import com.example.songs.model.SongCatalogVersion;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_MODE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface SongRepository extends JpaRepository<Song, Long> {
+    /** Remembers only misses, so repeated lookups of absent ids skip the database. */
+    @Override
+    @Cacheable(cacheNames = "missingSongs", unless = "#result != null")
+    Optional<Song> findById(Long id);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<Song> findFirstByTitle(String title);
+
+    List<Song> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /** Reads through the second-level cache without filling it, so full scans do not evict hot songs. */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true"),
+            @QueryHint(name = HINT_CACHE_MODE, value = "GET")})
+    Stream<Song> streamAllByOrderByIdAsc();
+
+    @Query("select s.id from Song s where s.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /** Deletes the songs among {@code ids} with one select and one set-based delete, and returns their ids. */
+    @Transactional
+    default List<Long> deleteExistingByIdIn(Collection<Long> ids) {
+        List<Long> existing = findExistingIds(ids);
+        if (!existing.isEmpty()) {
+            deleteAllByIdInBatch(existing);
+        }
+        return existing;
+    }
+
+    @Query("select new com.example.songs.model.SongCatalogVersion(count(s), max(s.id), sum(s.version)) from Song s")
+    SongCatalogVersion findCatalogVersion();
 }
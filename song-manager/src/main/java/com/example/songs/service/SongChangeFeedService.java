@@ -0,0 +1,119 @@
+package com.example.songs.service;
+
+import com.example.songs.model.SongChange;
+import com.example.songs.model.SongChangeEvent;
+import com.example.songs.model.SongChangeLog;
+import com.example.songs.model.SongChangeSink;
+import com.example.songs.model.SongChangeSubscription;
+import com.example.songs.model.SongChangesExpiredException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Feed of song changes for caches and search nodes that would otherwise poll the
+ * catalog. Every {@link SongChangeEvent} is numbered into a {@link SongChangeLog} of
+ * {@code songs.changes.capacity} entries, and each subscriber is sent the changes after
+ * its position on the {@code songChangeFeedExecutor}, at most
+ * {@code songs.changes.batch-size} per turn so one busy subscriber does not hold a thread.
+ * <p>
+ * Memory does not grow with slow subscribers: they only keep a position in the shared
+ * log. One that falls further behind than the log reaches is sent a single
+ * {@code resync} change carrying the newest sequence number and is dropped.
+ */
+@Service
+public class SongChangeFeedService {
+
+    private final SongChangeLog log;
+    private final Executor executor;
+    private final int batchSize;
+    private final Set<SongChangeSubscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    public SongChangeFeedService(@Value("${songs.changes.capacity}") int capacity,
+                                 @Qualifier("songChangeFeedExecutor") Executor executor,
+                                 @Value("${songs.changes.batch-size}") int batchSize) {
+        this.log = new SongChangeLog(capacity);
+        this.executor = executor;
+        this.batchSize = batchSize;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSongChanged(SongChangeEvent event) {
+        log.append(event);
+        for (SongChangeSubscription subscription : subscriptions) {
+            schedule(subscription);
+        }
+    }
+
+    /**
+     * Sends {@code sink} every change after {@code sequence}, or only changes from now on
+     * when it is {@code null}.
+     */
+    public SongChangeSubscription subscribe(Long sequence, SongChangeSink sink) {
+        SongChangeSubscription subscription =
+                new SongChangeSubscription(sequence != null ? sequence : log.getLastSequence(), sink);
+        subscriptions.add(subscription);
+        schedule(subscription);
+        return subscription;
+    }
+
+    public void unsubscribe(SongChangeSubscription subscription) {
+        subscription.close();
+        subscriptions.remove(subscription);
+    }
+
+    public long getLastSequence() {
+        return log.getLastSequence();
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    private void schedule(SongChangeSubscription subscription) {
+        if (!subscription.startDraining()) {
+            return;
+        }
+        try {
+            executor.execute(() -> drain(subscription));
+        } catch (RejectedExecutionException e) {
+            subscription.stopDraining();
+        }
+    }
+
+    private void drain(SongChangeSubscription subscription) {
+        try {
+            List<SongChange> changes = log.readAfter(subscription.getSequence(), batchSize);
+            for (SongChange change : changes) {
+                subscription.getSink().accept(change);
+                subscription.setSequence(change.getSequence());
+            }
+        } catch (SongChangesExpiredException e) {
+            send(subscription, SongChange.resync(e.getLastSequence()));
+            unsubscribe(subscription);
+        } catch (IOException | RuntimeException e) {
+            unsubscribe(subscription);
+        } finally {
+            subscription.stopDraining();
+        }
+        if (subscription.getSequence() < log.getLastSequence()) {
+            schedule(subscription);
+        }
+    }
+
+    private static void send(SongChangeSubscription subscription, SongChange change) {
+        try {
+            subscription.getSink().accept(change);
+        } catch (IOException | RuntimeException e) {
+            // the subscriber is dropped either way
+        }
+    }
+}
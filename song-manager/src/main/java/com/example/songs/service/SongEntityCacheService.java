@@ -0,0 +1,42 @@
+package com.example.songs.service;
+
+import com.example.songs.model.Song;
+import org.springframework.stereotype.Service;
+
+import javax.cache.CacheManager;
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+import java.util.Collection;
+
+/**
+ * Keeps Hibernate's second-level cache in step with songs written around Hibernate, by
+ * plain JDBC or by a native statement, which it does not see. Only the songs written are
+ * evicted, rather than the whole region a bulk update would drop.
+ */
+@Service
+public class SongEntityCacheService {
+    /** Hibernate's default region for cached query results, such as title lookups. */
+    private static final String QUERY_RESULTS_REGION = "default-query-results-region";
+
+    private final Cache songs;
+    private final CacheManager regions;
+
+    public SongEntityCacheService(EntityManagerFactory entityManagerFactory, CacheManager songEntityCacheManager) {
+        this.songs = entityManagerFactory.getCache();
+        this.regions = songEntityCacheManager;
+    }
+
+    public void evictSongs(Collection<Long> ids) {
+        for (Long id : ids) {
+            songs.evict(Song.class, id);
+        }
+    }
+
+    /** Drops cached query results, which may find songs by titles they no longer have. */
+    public void evictQueries() {
+        javax.cache.Cache<Object, Object> queries = regions.getCache(QUERY_RESULTS_REGION);
+        if (queries != null) {
+            queries.clear();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.songs.service;
+
+import com.example.songs.model.SongCsv;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Imports a CSV file at startup when the application is started with
+ * {@code --songs.import.file=<path>}. The import id defaults to the file name, so running
+ * the same command again after a crash resumes from the last committed chunk.
+ */
+@Service
+public class SongFileImportService implements ApplicationRunner {
+    private final SongImportService importService;
+    private final String importFile;
+    private final String importId;
+    private final int chunkSize;
+
+    public SongFileImportService(SongImportService importService,
+                                 @Value("${songs.import.file:}") String importFile,
+                                 @Value("${songs.import.id:}") String importId,
+                                 @Value("${songs.batch.chunk-size}") int chunkSize) {
+        this.importService = importService;
+        this.importFile = importFile;
+        this.importId = importId;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        if (importFile.isEmpty()) {
+            return;
+        }
+        Path file = Path.of(importFile);
+        String id = importId.isEmpty() ? file.getFileName().toString() : importId;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            importService.importSongs(id, SongCsv.read(reader), Math.max(1, chunkSize));
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.songs.service;
+
+import com.example.songs.model.LongIntHashMap;
+import com.example.songs.model.Song;
+import com.example.songs.model.SongChangeEvent;
+import com.example.songs.model.SongImport;
+import com.example.songs.model.SongImportRunningException;
+import com.example.songs.model.SongStream;
+import com.example.songs.repository.SongImportRepository;
+import com.example.songs.repository.SongRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resumable bulk import. Songs are deduplicated on their (title, artist, album, year)
+ * tuple and saved in chunks; each chunk commits in one transaction together with the
+ * import's {@link SongImport} progress row. Running an import again under the same id
+ * re-reads the records before the last checkpoint only to rebuild the duplicate set,
+ * and continues inserting after it. An id that is queued or running in this process
+ * cannot be queued or run again until it finishes, so two runs never share a checkpoint.
+ * <p>
+ * The duplicate set keeps a 64-bit hash of every distinct tuple in a primitive
+ * {@link LongIntHashMap}, about twenty bytes per song instead of the song itself. A hash
+ * seen before is only a candidate: the song is skipped once an equal tuple is found in
+ * the chunk being built or in the table, which costs one lookup per duplicate. A
+ * different song that merely shares the hash is imported, and counted in the log.
+ */
+@Service
+public class SongImportService {
+    private static final LogAccessor log = new LogAccessor(SongImportService.class);
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final String QUEUED = "queued";
+    private static final String RUNNING = "running";
+    private static final ExampleMatcher TUPLE = ExampleMatcher.matching()
+            .withIncludeNullValues()
+            .withIgnorePaths("id", "version");
+
+    private final SongRepository songRepository;
+    private final SongImportRepository importRepository;
+    private final ApplicationEventPublisher events;
+    private final TransactionTemplate transactions;
+    /** Ids queued or running in this process, with which of the two. */
+    private final Map<String, String> active = new ConcurrentHashMap<>();
+
+    public SongImportService(SongRepository songRepository, SongImportRepository importRepository,
+                             ApplicationEventPublisher events, PlatformTransactionManager transactionManager) {
+        this.songRepository = songRepository;
+        this.importRepository = importRepository;
+        this.events = events;
+        this.transactions = new TransactionTemplate(transactionManager);
+    }
+
+    public Optional<SongImport> getImport(String importId) {
+        return importRepository.findById(importId);
+    }
+
+    /**
+     * Creates the import, or takes up an earlier run under the same id with its progress,
+     * marked {@code queued} so it can be looked up before {@link #importSongs} reads a record.
+     * Fails with {@link SongImportRunningException} while that id is queued or running.
+     */
+    public SongImport queueImport(String importId) {
+        if (active.putIfAbsent(importId, QUEUED) != null) {
+            throw new SongImportRunningException(importId);
+        }
+        try {
+            return importRepository.save(withStatus(importId, QUEUED));
+        } catch (RuntimeException e) {
+            active.remove(importId);
+            throw e;
+        }
+    }
+
+    /** Marks a queued import failed when it could not be started, and releases its id. */
+    public void failQueuedImport(String importId) {
+        try {
+            importRepository.save(withStatus(importId, "failed"));
+        } finally {
+            active.remove(importId, QUEUED);
+        }
+    }
+
+    /**
+     * Runs the import queued under {@code importId}, or a new one. Fails with
+     * {@link SongImportRunningException} while another run of that id is going on.
+     */
+    public SongImport importSongs(String importId, SongStream songs, int chunkSize) {
+        if (active.putIfAbsent(importId, RUNNING) != null && !active.replace(importId, QUEUED, RUNNING)) {
+            throw new SongImportRunningException(importId);
+        }
+        try {
+            return runImport(importId, songs, chunkSize);
+        } finally {
+            active.remove(importId);
+        }
+    }
+
+    private SongImport runImport(String importId, SongStream songs, int chunkSize) {
+        SongImport progress = importRepository.save(withStatus(importId, RUNNING));
+        long checkpoint = progress.getRecordsRead();
+        if (checkpoint > 0) {
+            log.info(() -> "Resuming import " + importId + " after record " + checkpoint);
+        }
+
+        LongIntHashMap seen = new LongIntHashMap(chunkSize);
+        List<Song> chunk = new ArrayList<>(chunkSize);
+        long[] position = {0, 0};
+        long[] collisions = {0};
+        try {
+            songs.forEach(song -> {
+                position[0]++;
+                long key = tupleHash(song);
+                boolean fresh = seen.get(key, 0) == 0;
+                if (fresh) {
+                    seen.put(key, 1);
+                }
+                if (position[0] <= checkpoint) {
+                    return;
+                }
+                song.setId(null);
+                song.setVersion(0);
+                if (!fresh) {
+                    if (isDuplicate(song, chunk)) {
+                        position[1]++;
+                        return;
+                    }
+                    collisions[0]++;
+                }
+                chunk.add(song);
+                if (chunk.size() == chunkSize) {
+                    commit(progress, chunk, position[0], position[1]);
+                    chunk.clear();
+                    position[1] = 0;
+                }
+            });
+            progress.setStatus("completed");
+            commit(progress, chunk, Math.max(position[0], checkpoint), position[1]);
+            if (collisions[0] > 0) {
+                log.info(() -> "Import " + importId + ": " + collisions[0] + " songs shared a tuple hash with another song");
+            }
+        } catch (RuntimeException e) {
+            SongImport failed = importRepository.findById(importId).orElse(progress);
+            failed.setStatus("failed");
+            importRepository.save(failed);
+            log.warn(e, () -> "Import " + importId + " failed after record " + position[0]);
+            throw e;
+        }
+        return progress;
+    }
+
+    private SongImport withStatus(String importId, String status) {
+        SongImport progress = importRepository.findById(importId).orElseGet(() -> new SongImport(importId));
+        progress.setStatus(status);
+        return progress;
+    }
+
+    /** Whether a song with the tuple of {@code song} is waiting in {@code chunk} or already stored. */
+    private boolean isDuplicate(Song song, List<Song> chunk) {
+        for (Song pending : chunk) {
+            if (Objects.equals(pending.getTitle(), song.getTitle()) && Objects.equals(pending.getArtist(), song.getArtist())
+                    && Objects.equals(pending.getAlbum(), song.getAlbum()) && pending.getYear() == song.getYear()) {
+                return true;
+            }
+        }
+        return songRepository.exists(Example.of(song, TUPLE));
+    }
+
+    /** FNV-1a over the (title, artist, album, year) tuple; never 0, which the map reserves. */
+    private static long tupleHash(Song song) {
+        long hash = 0xcbf29ce484222325L;
+        hash = fnv(fnv(fnv(hash, song.getTitle()), song.getArtist()), song.getAlbum());
+        hash = (hash ^ song.getYear()) * FNV_PRIME;
+        return hash != 0 ? hash : 1;
+    }
+
+    /** Adds {@code value} and a terminator that no character matches, so fields cannot run into each other. */
+    private static long fnv(long hash, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+            }
+        }
+        return (hash ^ (value != null ? 0x10000 : 0x20000)) * FNV_PRIME;
+    }
+
+    private void commit(SongImport progress, List<Song> chunk, long recordsRead, long duplicates) {
+        List<Song> saved = transactions.execute(status -> {
+            List<Song> created = songRepository.saveAll(chunk);
+            progress.advance(recordsRead, created.size(), duplicates);
+            importRepository.save(progress);
+            return created;
+        });
+        for (Song song : saved) {
+            events.publishEvent(SongChangeEvent.created(song));
+        }
+        log.info(() -> "Import " + progress.getId() + ": " + progress.getRecordsRead() + " records read, "
+                + progress.getSongsCreated() + " songs created, " + progress.getDuplicatesSkipped() + " duplicates");
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.songs.service;
+
+import com.example.songs.model.SongChangeEvent;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Fills the search, suggest and stats indexes at startup in one pass over the table,
+ * handing every song to each of them as a {@code created} change. The cursor is read in
+ * batches; each batch is indexed by the three indexes in parallel on the common fork-join
+ * pool while the next one is read, so a cold start costs the slowest index rather than
+ * the sum of all three. From then on they follow {@link SongChangeEvent}s on their own.
+ */
+@Service
+public class SongIndexService {
+    private static final int BATCH_SIZE = 1000;
+
+    private final SongService songService;
+    private final List<Consumer<SongChangeEvent>> indexes;
+
+    public SongIndexService(SongService songService, SongSearchService search,
+                            SongSuggestService suggest, SongStatsService stats) {
+        this.songService = songService;
+        this.indexes = List.of(search::onSongChanged, suggest::onSongChanged, stats::onSongChanged);
+    }
+
+    @PostConstruct
+    public void load() {
+        List<SongChangeEvent> batch = new ArrayList<>(BATCH_SIZE);
+        CompletableFuture<?>[] indexing = {CompletableFuture.completedFuture(null)};
+        songService.forEachSong(song -> {
+            batch.add(SongChangeEvent.created(song));
+            if (batch.size() == BATCH_SIZE) {
+                indexing[0] = index(List.copyOf(batch), indexing[0]);
+                batch.clear();
+            }
+        });
+        index(batch, indexing[0]).join();
+    }
+
+    /** Hands {@code batch} to every index once {@code previous} is done, so at most one batch waits in memory. */
+    private CompletableFuture<?> index(List<SongChangeEvent> batch, CompletableFuture<?> previous) {
+        previous.join();
+        CompletableFuture<?>[] running = new CompletableFuture<?>[indexes.size()];
+        for (int i = 0; i < running.length; i++) {
+            Consumer<SongChangeEvent> index = indexes.get(i);
+            running[i] = CompletableFuture.runAsync(() -> batch.forEach(index));
+        }
+        return CompletableFuture.allOf(running);
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.songs.service;
+
+import com.example.songs.model.LongIntHashMap;
+import com.example.songs.model.LongPostingList;
+import com.example.songs.model.Song;
+import com.example.songs.model.SongChangeEvent;
+import com.example.songs.model.SongSearchResult;
+import com.example.songs.model.TopScoredIds;
+import com.example.songs.repository.SongRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over title, artist and album. Each field maps its tokens
+ * to {@link LongPostingList}s of song ids. A query token matches every indexed token it
+ * is a prefix of, and a song must match all query tokens. Hits are ranked by the
+ * weight of the fields they matched in: title over artist over album. Scores are
+ * summed in a {@link LongIntHashMap} and only the hits up to the requested page are
+ * ranked, in a {@link TopScoredIds} heap.
+ * <p>
+ * The index is loaded at startup and then follows {@link SongChangeEvent}s. Only the
+ * requested page of hits is read from the database.
+ */
+@Service
+public class SongSearchService {
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int[] FIELD_WEIGHTS = {3, 2, 1};
+    private static final int FIELD_BITS = FIELD_WEIGHTS.length;
+    private static final int FIELD_MASK = (1 << FIELD_BITS) - 1;
+
+    private final SongRepository repository;
+    private final List<NavigableMap<String, LongPostingList>> fields =
+            List.of(new TreeMap<>(), new TreeMap<>(), new TreeMap<>());
+    private final Map<Long, String[]> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public SongSearchService(SongRepository repository) {
+        this.repository = repository;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSongChanged(SongChangeEvent event) {
+        if (event.isDeleted()) {
+            lock.writeLock().lock();
+            try {
+                unindex(event.getSongId(), documents.remove(event.getSongId()));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } else {
+            index(event.getSong());
+        }
+    }
+
+    public SongSearchResult search(String query, int page, int size) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty()) {
+            return new SongSearchResult(List.of(), 0, page, size);
+        }
+        LongIntHashMap scores = null;
+        lock.readLock().lock();
+        try {
+            for (String term : terms) {
+                scores = score(term, scores);
+                if (scores.size() == 0) {
+                    break;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        long from = (long) page * size;
+        if (from >= scores.size()) {
+            return new SongSearchResult(List.of(), scores.size(), page, size);
+        }
+        TopScoredIds top = new TopScoredIds((int) Math.min(from + size, scores.size()));
+        scores.forEach((id, value) -> top.offer(id, value >>> FIELD_BITS));
+        long[] ranked = top.drainBestFirst();
+        List<Long> pageIds = new ArrayList<>(ranked.length - (int) from);
+        for (int i = (int) from; i < ranked.length; i++) {
+            pageIds.add(ranked[i]);
+        }
+        return new SongSearchResult(load(pageIds), scores.size(), page, size);
+    }
+
+    /** Size of the index and an estimate of its heap footprint per indexed song. */
+    public Map<String, Number> getStats() {
+        lock.readLock().lock();
+        try {
+            long tokens = 0;
+            long postings = 0;
+            long bytes = 48L * documents.size();
+            for (NavigableMap<String, LongPostingList> field : fields) {
+                for (Map.Entry<String, LongPostingList> entry : field.entrySet()) {
+                    tokens++;
+                    postings += entry.getValue().size();
+                    bytes += 40 + 48 + entry.getKey().length() + entry.getValue().estimatedBytes();
+                }
+            }
+            Map<String, Number> stats = new LinkedHashMap<>();
+            stats.put("songs", documents.size());
+            stats.put("tokens", tokens);
+            stats.put("postings", postings);
+            stats.put("estimatedBytes", bytes);
+            stats.put("bytesPerSong", documents.isEmpty() ? 0 : bytes / documents.size());
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void index(Song song) {
+        String[] document = {song.getTitle(), song.getArtist(), song.getAlbum()};
+        lock.writeLock().lock();
+        try {
+            unindex(song.getId(), documents.put(song.getId(), document));
+            for (int field = 0; field < document.length; field++) {
+                for (String token : tokenize(document[field])) {
+                    fields.get(field).computeIfAbsent(token, key -> new LongPostingList()).add(song.getId());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void unindex(Long id, String[] document) {
+        if (document == null) {
+            return;
+        }
+        for (int field = 0; field < document.length; field++) {
+            NavigableMap<String, LongPostingList> tokens = fields.get(field);
+            for (String token : tokenize(document[field])) {
+                LongPostingList postings = tokens.get(token);
+                if (postings != null && postings.remove(id) && postings.isEmpty()) {
+                    tokens.remove(token);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the weight of {@code term}, counting each field at most once, to the score of
+     * every song in {@code previous} that matches it and drops the others. Without previous
+     * scores every matching song is scored. Scores are kept above {@link #FIELD_BITS} low
+     * bits, which collect the fields a song matched while the term is looked up.
+     */
+    private LongIntHashMap score(String term, LongIntHashMap previous) {
+        LongIntHashMap matched = previous != null ? previous : new LongIntHashMap(16);
+        for (int field = 0; field < fields.size(); field++) {
+            int fieldBit = 1 << field;
+            for (LongPostingList postings : fields.get(field)
+                    .subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+                for (int i = 0; i < postings.size(); i++) {
+                    long id = postings.get(i);
+                    int value = matched.get(id, -1);
+                    if (value >= 0) {
+                        matched.put(id, value | fieldBit);
+                    } else if (previous == null) {
+                        matched.put(id, fieldBit);
+                    }
+                }
+            }
+        }
+        LongIntHashMap scores = new LongIntHashMap(matched.size());
+        matched.forEach((id, value) -> {
+            int mask = value & FIELD_MASK;
+            if (mask == 0) {
+                return;
+            }
+            int score = value >>> FIELD_BITS;
+            for (int field = 0; field < FIELD_WEIGHTS.length; field++) {
+                if ((mask & (1 << field)) != 0) {
+                    score += FIELD_WEIGHTS[field];
+                }
+            }
+            scores.put(id, score << FIELD_BITS);
+        });
+        return scores;
+    }
+
+    private List<Song> load(List<Long> ids) {
+        Map<Long, Song> byId = new HashMap<>();
+        for (Song song : repository.findAllById(ids)) {
+            byId.put(song.getId(), song);
+        }
+        List<Song> songs = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Song song = byId.get(id);
+            if (song != null) {
+                songs.add(song);
+            }
+        }
+        return songs;
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
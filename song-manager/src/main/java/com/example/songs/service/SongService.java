@@ -1,44 +1,307 @@
 package com.example.songs.service;
 
 import com.example.songs.model.Song;
+import com.example.songs.model.SongBatchAbortedException;
+import com.example.songs.model.SongCatalogVersion;
+import com.example.songs.model.SongChangeEvent;
+import com.example.songs.model.SongNotFoundException;
+import com.example.songs.model.SongPage;
+import com.example.songs.model.SongPatch;
+import com.example.songs.model.SongSingleFlight;
+import com.example.songs.model.SongStream;
 import com.example.songs.repository.SongRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.lang.Nullable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
+@CacheConfig(cacheNames = "songs")
 public class SongService {
     private final SongRepository repository;
+    private final ApplicationEventPublisher events;
+    private final SongSingleFlight<Long, Song> idLoads;
+    private final SongSingleFlight<String, Optional<Song>> titleLoads;
+    private final SongWriteBehindService writeBehind;
+    private final SongVersionedPatchService versionedPatches;
 
-    public SongService(SongRepository repository) {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public SongService(SongRepository repository, ApplicationEventPublisher events) {
+        this(repository, events, new SongSingleFlight<>(), new SongSingleFlight<>(), null, null);
+    }
+
+    /**
+     * {@code writeBehind} is only present with {@code songs.write.mode=behind}, and
+     * {@code versionedPatches} outside the {@code columnar} profile.
+     */
+    @Autowired
+    public SongService(SongRepository repository, ApplicationEventPublisher events,
+                       SongSingleFlight<Long, Song> songIdLoads, SongSingleFlight<String, Optional<Song>> songTitleLoads,
+                       @Nullable SongWriteBehindService writeBehind,
+                       @Nullable SongVersionedPatchService versionedPatches) {
         this.repository = repository;
+        this.events = events;
+        this.idLoads = songIdLoads;
+        this.titleLoads = songTitleLoads;
+        this.writeBehind = writeBehind;
+        this.versionedPatches = versionedPatches;
     }
 
     public List<Song> getAllSongs() {
         return repository.findAll();
     }
 
+    /**
+     * Hands every song to {@code action} in id order while the rows are read, detaching
+     * each entity afterwards so the persistence context does not grow with the table.
+     */
+    @Transactional(readOnly = true)
+    public void forEachSong(Consumer<Song> action) {
+        try (Stream<Song> songs = repository.streamAllByOrderByIdAsc()) {
+            songs.forEach(song -> {
+                action.accept(song);
+                entityManager.detach(song);
+            });
+        }
+    }
+
+    public SongCatalogVersion getCatalogVersion() {
+        return repository.findCatalogVersion();
+    }
+
+    public SongPage getSongPage(String cursor, int size) {
+        long afterId = cursor == null ? 0L : SongPage.decodeCursor(cursor);
+        List<Song> songs = repository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, size + 1));
+        if (songs.size() <= size) {
+            return new SongPage(songs, null);
+        }
+        List<Song> items = new ArrayList<>(songs.subList(0, size));
+        return new SongPage(items, SongPage.encodeCursor(items.get(size - 1).getId()));
+    }
+
+    /**
+     * Concurrent lookups of the same id that miss the cache share one database load. With
+     * write-behind, an acknowledged write is returned before it reaches the database.
+     */
+    @Cacheable(key = "#id")
     public Song getSongById(Long id) {
-        return repository.findById(id).orElseThrow(() -> new RuntimeException("Song not found"));
+        Song pending = writeBehind != null ? writeBehind.getPending(id) : null;
+        return pending != null ? pending : idLoads.load(id, this::loadSong);
     }
 
+    /** Concurrent lookups of the same title share one database load. */
+    public Optional<Song> getSongByTitle(String title) {
+        return titleLoads.load(title, repository::findFirstByTitle);
+    }
+
+    private Song loadSong(Long id) {
+        return repository.findById(id).orElseThrow(() -> new SongNotFoundException(id));
+    }
+
+    @CachePut(key = "#result.id")
     public Song createSong(Song song) {
-        return repository.save(song);
+        Song saved = writeBehind != null ? writeBehind.create(song) : repository.save(song);
+        events.publishEvent(SongChangeEvent.created(saved));
+        return saved;
+    }
+
+    /**
+     * Saves songs in transactions of {@code chunkSize} rows. Ids are ignored and drawn from
+     * the pooled sequence, so each chunk is flushed as JDBC insert batches. If a row cannot
+     * be read or a chunk cannot be saved, the {@link SongBatchAbortedException} carries the
+     * number of rows already committed.
+     */
+    public long createSongs(SongStream songs, int chunkSize) {
+        List<Song> chunk = new ArrayList<>(chunkSize);
+        long[] created = {0};
+        try {
+            songs.forEach(song -> {
+                song.setId(null);
+                song.setVersion(0);
+                chunk.add(song);
+                if (chunk.size() == chunkSize) {
+                    created[0] += saveChunk(chunk);
+                    chunk.clear();
+                }
+            });
+            if (!chunk.isEmpty()) {
+                created[0] += saveChunk(chunk);
+            }
+        } catch (RuntimeException e) {
+            throw new SongBatchAbortedException(created[0], e);
+        }
+        return created[0];
     }
 
+    private int saveChunk(List<Song> chunk) {
+        for (Song saved : repository.saveAll(chunk)) {
+            events.publishEvent(SongChangeEvent.created(saved));
+        }
+        return chunk.size();
+    }
+
+    @Transactional
+    @CachePut(key = "#id")
     public Song updateSong(Long id, Song newSong) {
-        Song song = getSongById(id);
+        return updateSong(id, newSong, null);
+    }
+
+    /**
+     * Updates the song only if it is still at {@code expectedVersion}; a stale version fails
+     * with an optimistic locking exception. A {@code null} version skips the check.
+     * <p>
+     * The song stays managed between the read and the write, so saving it does not merge a
+     * detached copy, which would read the row a second time on a second-level cache miss.
+     */
+    @Transactional
+    @CachePut(key = "#id")
+    public Song updateSong(Long id, Song newSong, Long expectedVersion) {
+        if (writeBehind != null && expectedVersion == null) {
+            Song queued = writeBehind.update(id, newSong, this::loadSong);
+            events.publishEvent(SongChangeEvent.updated(queued));
+            return queued;
+        }
+        flushWriteBehind();
+        Song song = loadSong(id);
+        if (expectedVersion != null && song.getVersion() != expectedVersion) {
+            throw new ObjectOptimisticLockingFailureException(Song.class, id);
+        }
         song.setTitle(newSong.getTitle());
         song.setArtist(newSong.getArtist());
         song.setAlbum(newSong.getAlbum());
         song.setYear(newSong.getYear());
-        return repository.save(song);
+        Song saved = repository.save(song);
+        events.publishEvent(SongChangeEvent.updated(saved));
+        return saved;
+    }
+
+    /**
+     * Changes only the fields present in {@code patch}. The song is read once inside the
+     * transaction and {@link Song} is dynamically updated, so the UPDATE sets just the
+     * columns that actually changed.
+     */
+    @Transactional
+    @CachePut(key = "#id")
+    public Song patchSong(Long id, SongPatch patch) {
+        flushWriteBehind();
+        Song saved = repository.save(patch.applyTo(loadSong(id)));
+        events.publishEvent(SongChangeEvent.updated(saved));
+        return saved;
+    }
+
+    /**
+     * Like {@link #patchSong}, but only if the song is still at {@code expectedVersion}, and
+     * returns the new version. Fails with an optimistic locking exception when the song has
+     * moved on, or {@link SongNotFoundException} when it is gone. The song is written by one
+     * versioned UPDATE that reads nothing first, so only a failed patch looks the song up.
+     */
+    @Transactional
+    @CachePut(key = "#id")
+    public Song patchSongAtVersion(Long id, SongPatch patch, long expectedVersion) {
+        flushWriteBehind();
+        Song patched;
+        if (versionedPatches != null) {
+            patched = versionedPatches.patchAtVersion(id, patch, expectedVersion)
+                    .orElseThrow(() -> repository.existsById(id)
+                            ? new ObjectOptimisticLockingFailureException(Song.class, id)
+                            : new SongNotFoundException(id));
+        } else {
+            Song song = loadSong(id);
+            if (song.getVersion() != expectedVersion) {
+                throw new ObjectOptimisticLockingFailureException(Song.class, id);
+            }
+            patched = repository.save(patch.applyTo(song));
+        }
+        events.publishEvent(SongChangeEvent.updated(patched));
+        return patched;
+    }
+
+    /** Looks up {@code ids} with one IN query per {@code chunkSize} ids; absent ids map to {@code null}. */
+    public Map<Long, Song> getSongsByIds(List<Long> ids, int chunkSize) {
+        Map<Long, Song> songs = distinctIds(ids, null);
+        List<Long> distinct = new ArrayList<>(songs.keySet());
+        for (int from = 0; from < distinct.size(); from += chunkSize) {
+            for (Song song : repository.findAllById(distinct.subList(from, Math.min(from + chunkSize, distinct.size())))) {
+                songs.put(song.getId(), song);
+            }
+        }
+        return songs;
     }
 
+    /**
+     * Deletes {@code ids} with one set-based delete per {@code chunkSize} ids, each chunk in
+     * its own transaction. Maps every id to whether a song was deleted for it.
+     */
+    public Map<Long, Boolean> deleteSongs(List<Long> ids, int chunkSize) {
+        flushWriteBehind();
+        Map<Long, Boolean> deleted = distinctIds(ids, false);
+        List<Long> distinct = new ArrayList<>(deleted.keySet());
+        for (int from = 0; from < distinct.size(); from += chunkSize) {
+            for (Long id : repository.deleteExistingByIdIn(distinct.subList(from, Math.min(from + chunkSize, distinct.size())))) {
+                deleted.put(id, true);
+                events.publishEvent(SongChangeEvent.deleted(id));
+            }
+        }
+        return deleted;
+    }
+
+    private static <V> Map<Long, V> distinctIds(List<Long> ids, V initial) {
+        Map<Long, V> result = new LinkedHashMap<>();
+        for (Long id : ids) {
+            if (id == null) {
+                throw new IllegalArgumentException("ID cannot be null");
+            }
+            result.put(id, initial);
+        }
+        return result;
+    }
+
+    @CacheEvict(key = "#id")
     public void deleteSong(Long id) {
         if (id == null) {
             throw new NullPointerException("ID cannot be null");
         }
+        flushWriteBehind();
         repository.deleteById(id);
+        events.publishEvent(SongChangeEvent.deleted(id));
+    }
+
+    /** Conditional writes and deletes go to the database directly, after the writes acknowledged before them. */
+    private void flushWriteBehind() {
+        if (writeBehind != null) {
+            writeBehind.flush();
+        }
+    }
+
+    /** Batch deletes do not pass through {@link #deleteSong}, so their ids are evicted here. */
+    @TransactionalEventListener(fallbackExecution = true, condition = "#event.type == 'deleted'")
+    @CacheEvict(key = "#event.songId")
+    public void evictDeletedSong(SongChangeEvent event) {
+    }
+
+    /** A new song may take an id that was looked up before it existed. */
+    @TransactionalEventListener(fallbackExecution = true, condition = "#event.type == 'created'")
+    @CacheEvict(cacheNames = "missingSongs", key = "#event.songId")
+    public void forgetMissingSong(SongChangeEvent event) {
     }
 }
@@ -0,0 +1,87 @@
+package com.example.songs.service;
+
+import com.example.songs.model.Song;
+import com.example.songs.model.SongChangeEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Song counts per artist, album and year, kept in memory so a dashboard query costs
+ * O(groups) instead of a table scan. The counts are filled at startup in the same pass
+ * over the table as the search and suggest indexes, and then follow
+ * {@link SongChangeEvent}s. The grouping values of every song are remembered so updates
+ * and deletes can take back the old ones.
+ */
+@Service
+public class SongStatsService {
+    private final ConcurrentSkipListMap<String, Long> byArtist = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, Long> byAlbum = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Integer, Long> byYear = new ConcurrentSkipListMap<>();
+    private final Map<Long, Song> groupsById = new ConcurrentHashMap<>();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSongChanged(SongChangeEvent event) {
+        if (event.isDeleted()) {
+            remove(groupsById.remove(event.getSongId()));
+        } else {
+            put(event.getSong());
+        }
+    }
+
+    public Map<String, Long> countByArtist() {
+        return new TreeMap<>(byArtist);
+    }
+
+    public Map<String, Long> countByAlbum() {
+        return new TreeMap<>(byAlbum);
+    }
+
+    public Map<Integer, Long> countByYear() {
+        return new TreeMap<>(byYear);
+    }
+
+    private void put(Song song) {
+        Song groups = new Song(null, song.getArtist(), song.getAlbum(), song.getYear());
+        Song previous = groupsById.put(song.getId(), groups);
+        if (previous != null) {
+            if (sameGroups(previous, groups)) {
+                return;
+            }
+            remove(previous);
+        }
+        increment(byArtist, groups.getArtist());
+        increment(byAlbum, groups.getAlbum());
+        increment(byYear, groups.getYear());
+    }
+
+    private void remove(Song groups) {
+        if (groups != null) {
+            decrement(byArtist, groups.getArtist());
+            decrement(byAlbum, groups.getAlbum());
+            decrement(byYear, groups.getYear());
+        }
+    }
+
+    private static boolean sameGroups(Song a, Song b) {
+        return Objects.equals(a.getArtist(), b.getArtist()) && Objects.equals(a.getAlbum(), b.getAlbum())
+                && a.getYear() == b.getYear();
+    }
+
+    private static <K> void increment(ConcurrentSkipListMap<K, Long> counts, K key) {
+        if (key != null) {
+            counts.merge(key, 1L, Long::sum);
+        }
+    }
+
+    private static <K> void decrement(ConcurrentSkipListMap<K, Long> counts, K key) {
+        if (key != null) {
+            counts.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+        }
+    }
+}
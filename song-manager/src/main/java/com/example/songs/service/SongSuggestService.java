@@ -0,0 +1,78 @@
+package com.example.songs.service;
+
+import com.example.songs.model.Song;
+import com.example.songs.model.SongChangeEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Title autocomplete served from memory. Titles are kept in a sorted map keyed by
+ * their lower-cased form, so a prefix query is one range lookup plus {@code limit}
+ * steps, independent of catalog size. The map is loaded once at startup and then
+ * follows {@link SongChangeEvent}s.
+ */
+@Service
+public class SongSuggestService {
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private final ConcurrentSkipListMap<String, Integer> titleCounts = new ConcurrentSkipListMap<>();
+    private final Map<Long, String> titlesById = new ConcurrentHashMap<>();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSongChanged(SongChangeEvent event) {
+        if (event.isDeleted()) {
+            remove(titlesById.remove(event.getSongId()));
+        } else {
+            put(event.getSong());
+        }
+    }
+
+    /** Up to {@code limit} distinct titles starting with {@code prefix}, ignoring case, in alphabetical order. */
+    public List<String> suggest(String prefix, int limit) {
+        String from = normalize(prefix);
+        ConcurrentNavigableMap<String, Integer> matches =
+                titleCounts.subMap(from, true, from + Character.MAX_VALUE, false);
+        List<String> titles = new ArrayList<>(Math.min(limit, 16));
+        for (String key : matches.keySet()) {
+            if (titles.size() == limit) {
+                break;
+            }
+            titles.add(key.substring(key.indexOf(KEY_SEPARATOR) + 1));
+        }
+        return titles;
+    }
+
+    private void put(Song song) {
+        String title = song.getTitle();
+        String previous = title != null ? titlesById.put(song.getId(), title) : titlesById.remove(song.getId());
+        if (title != null && title.equals(previous)) {
+            return;
+        }
+        remove(previous);
+        if (title != null) {
+            titleCounts.merge(key(title), 1, Integer::sum);
+        }
+    }
+
+    private void remove(String title) {
+        if (title != null) {
+            titleCounts.computeIfPresent(key(title), (key, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    private static String key(String title) {
+        return normalize(title) + KEY_SEPARATOR + title;
+    }
+
+    private static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+}
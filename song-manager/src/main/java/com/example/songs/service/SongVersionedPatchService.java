@@ -0,0 +1,67 @@
+package com.example.songs.service;
+
+import com.example.songs.model.Song;
+import com.example.songs.model.SongPatch;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Patches a song at a known version with a single UPDATE, without reading it first. The
+ * driver hands back the written row as generated keys, which H2 and PostgreSQL support for
+ * updates. Hibernate does not see the write, so only that song is evicted from its
+ * second-level cache. Absent in the {@code columnar} profile, whose songs live in memory.
+ */
+@Service
+@Profile("!columnar")
+public class SongVersionedPatchService {
+    private static final String UPDATE = "update song set title = coalesce(?, title), artist = coalesce(?, artist), "
+            + "album = coalesce(?, album), year = coalesce(?, year), version = version + 1 where id = ? and version = ?";
+    private static final String[] COLUMNS = {"ID", "VERSION", "TITLE", "ARTIST", "ALBUM", "YEAR"};
+
+    private final JdbcTemplate jdbc;
+    private final SongEntityCacheService entityCache;
+
+    public SongVersionedPatchService(JdbcTemplate jdbc, SongEntityCacheService entityCache) {
+        this.jdbc = jdbc;
+        this.entityCache = entityCache;
+    }
+
+    /** The patched song, or empty when song {@code id} is gone or no longer at {@code version}. */
+    public Optional<Song> patchAtVersion(Long id, SongPatch patch, long version) {
+        Object[] args = {patch.getTitle(), patch.getArtist(), patch.getAlbum(), patch.getYear(), id, version};
+        Optional<Song> patched = jdbc.execute(connection -> {
+            PreparedStatement statement = connection.prepareStatement(UPDATE, COLUMNS);
+            new ArgumentPreparedStatementSetter(args).setValues(statement);
+            return statement;
+        }, (PreparedStatement statement) -> {
+            if (statement.executeUpdate() == 0) {
+                return Optional.empty();
+            }
+            try (ResultSet row = statement.getGeneratedKeys()) {
+                return row.next() ? Optional.of(toSong(row)) : Optional.empty();
+            }
+        });
+        if (patched.isPresent()) {
+            entityCache.evictSongs(List.of(id));
+            if (patch.getTitle() != null) {
+                entityCache.evictQueries();
+            }
+        }
+        return patched;
+    }
+
+    private static Song toSong(ResultSet row) throws SQLException {
+        Song song = new Song(row.getString(3), row.getString(4), row.getString(5), row.getInt(6));
+        song.setId(row.getLong(1));
+        song.setVersion(row.getLong(2));
+        return song;
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.songs.service;
+
+import com.example.songs.model.Song;
+import com.example.songs.model.SongWriteBuffer;
+import com.example.songs.model.SongWriteJournal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Write-behind for single-song creates and unconditional updates, enabled with
+ * {@code songs.write.mode=behind}. A write is acknowledged once it is in the
+ * {@link SongWriteBuffer}; a background writer stores the buffer in batches of up to
+ * {@code songs.write.batch-size} songs, one transaction and one JDBC batch per kind of
+ * statement each, at least every {@code songs.write.flush-interval}. Repeated updates
+ * of a pending song are written once. When a batch fails, its songs are written one at a
+ * time, and a song the database refuses is dropped and counted rather than retried, so
+ * it cannot hold up the songs queued behind it.
+ * <p>
+ * New songs get their id up front from a block of {@code song_seq} values, so the
+ * acknowledgement carries it. Pending writes are flushed on a regular shutdown. Without
+ * {@code songs.write.journal} the buffer is memory only, and writes acknowledged but not
+ * yet flushed are lost if the process dies. With it, each acknowledged write is also
+ * appended to that {@link SongWriteJournal}, which is stored on the next start and
+ * emptied whenever the buffer is.
+ */
+@Service
+@ConditionalOnProperty(name = "songs.write.mode", havingValue = "behind")
+public class SongWriteBehindService {
+    private static final LogAccessor log = new LogAccessor(SongWriteBehindService.class);
+    /** Matches the allocation size of {@code song_seq} on {@link Song}, so blocks line up with Hibernate's. */
+    private static final int ID_BLOCK_SIZE = 50;
+    private static final String INSERT =
+            "insert into song (id, version, title, artist, album, year) values (?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE =
+            "update song set title = ?, artist = ?, album = ?, year = ?, version = greatest(version + 1, ?) where id = ?";
+    /** Stores a journaled song unless its row already has that version or a later one. */
+    private static final String REPLAY_UPDATE =
+            "update song set title = ?, artist = ?, album = ?, year = ?, version = ? where id = ? and version < ?";
+    private static final String REPLAY_INSERT = "insert into song (id, version, title, artist, album, year) "
+            + "select ?, ?, ?, ?, ?, ? where not exists (select 1 from song where id = ?)";
+
+    private final SongWriteBuffer buffer;
+    private final JdbcTemplate jdbc;
+    private final SongEntityCacheService entityCache;
+    private final TransactionTemplate transactions;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Duration offerTimeout;
+    private final SongWriteJournal journal;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    /** Held shared while a write is queued and journaled, and exclusively to empty the journal. */
+    private final ReadWriteLock journalLock = new ReentrantReadWriteLock();
+    private Thread writer;
+    private volatile boolean running;
+    private long nextId;
+    private long lastId = -1;
+
+    public SongWriteBehindService(SongWriteBuffer buffer, JdbcTemplate jdbc,
+                                  PlatformTransactionManager transactionManager,
+                                  SongEntityCacheService entityCache,
+                                  @Value("${songs.write.batch-size}") int batchSize,
+                                  @Value("${songs.write.flush-interval}") Duration flushInterval,
+                                  @Value("${songs.write.offer-timeout}") Duration offerTimeout,
+                                  @Value("${songs.write.journal}") String journal) throws IOException {
+        this.buffer = buffer;
+        this.jdbc = jdbc;
+        this.entityCache = entityCache;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.transactions.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.offerTimeout = offerTimeout;
+        this.journal = journal.isEmpty() ? null : new SongWriteJournal(Path.of(journal));
+    }
+
+    @PostConstruct
+    public void start() {
+        if (journal != null) {
+            replay();
+        }
+        running = true;
+        writer = new Thread(this::writeLoop, "song-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Stops the writer and stores whatever is still pending. The writer is woken rather than
+     * interrupted, since an interrupt during file I/O would close H2's file channel.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        running = false;
+        buffer.close();
+        writer.join();
+        flush();
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /** Queues {@code song} as a new row and returns it with its id and version 0. */
+    public Song create(Song song) {
+        song.setId(allocateId());
+        song.setVersion(0);
+        enqueue(song, true);
+        return song;
+    }
+
+    /**
+     * Queues the fields of {@code newSong} as the next version of song {@code id}, based on
+     * its pending write or, when there is none, on {@code loader}.
+     */
+    public Song update(Long id, Song newSong, Function<Long, Song> loader) {
+        Song current = buffer.get(id);
+        if (current == null) {
+            current = loader.apply(id);
+        }
+        Song song = new Song(newSong.getTitle(), newSong.getArtist(), newSong.getAlbum(), newSong.getYear());
+        song.setId(id);
+        song.setVersion(current.getVersion() + 1);
+        enqueue(song, false);
+        return song;
+    }
+
+    /** The acknowledged but unwritten state of song {@code id}, or {@code null}. */
+    public Song getPending(Long id) {
+        return buffer.get(id);
+    }
+
+    /**
+     * Stores every pending write before returning, for operations that must see them in the
+     * database. New writes wait until it returns.
+     */
+    public void flush() {
+        journalLock.writeLock().lock();
+        flushLock.lock();
+        try {
+            for (List<Song> batch = buffer.drain(batchSize); !batch.isEmpty(); batch = buffer.drain(batchSize)) {
+                write(batch);
+            }
+            if (journal != null) {
+                journal.truncate();
+            }
+        } finally {
+            flushLock.unlock();
+            journalLock.writeLock().unlock();
+        }
+    }
+
+    private void enqueue(Song song, boolean insert) {
+        journalLock.readLock().lock();
+        try {
+            if (!buffer.offer(song, insert, offerTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new RejectedExecutionException("Write-behind buffer is full");
+            }
+            if (journal != null) {
+                journal.append(song);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for the write-behind buffer", e);
+        } finally {
+            journalLock.readLock().unlock();
+        }
+    }
+
+    /** Stores the songs left in the journal by a process that died before writing them. */
+    private void replay() {
+        List<Song> songs = List.copyOf(journal.replay());
+        if (!songs.isEmpty()) {
+            List<Object[]> updates = new ArrayList<>(songs.size());
+            List<Object[]> inserts = new ArrayList<>(songs.size());
+            for (Song song : songs) {
+                updates.add(new Object[]{song.getTitle(), song.getArtist(), song.getAlbum(), song.getYear(),
+                        song.getVersion(), song.getId(), song.getVersion()});
+                inserts.add(new Object[]{song.getId(), song.getVersion(), song.getTitle(), song.getArtist(),
+                        song.getAlbum(), song.getYear(), song.getId()});
+            }
+            transactions.executeWithoutResult(status -> {
+                jdbc.batchUpdate(REPLAY_UPDATE, updates);
+                jdbc.batchUpdate(REPLAY_INSERT, inserts);
+            });
+            evict(songs);
+            log.info("Write-behind stored " + songs.size() + " songs from the journal");
+        }
+        journal.truncate();
+    }
+
+    /** Empties the journal if nothing is pending, unless a flush or new writes are under way. */
+    private void truncateJournal() {
+        if (journal == null || buffer.size() > 0 || !journalLock.writeLock().tryLock()) {
+            return;
+        }
+        try {
+            if (buffer.size() == 0) {
+                journal.truncate();
+            }
+        } finally {
+            journalLock.writeLock().unlock();
+        }
+    }
+
+    private synchronized long allocateId() {
+        if (nextId > lastId) {
+            lastId = jdbc.queryForObject("select next value for song_seq", Long.class);
+            nextId = Math.max(1, lastId - ID_BLOCK_SIZE + 1);
+        }
+        return nextId++;
+    }
+
+    private void writeLoop() {
+        while (running) {
+            try {
+                List<Song> batch = buffer.awaitBatch(batchSize, flushInterval.toNanos(), TimeUnit.NANOSECONDS);
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                flushLock.lock();
+                try {
+                    write(batch);
+                } finally {
+                    flushLock.unlock();
+                }
+                truncateJournal();
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.error(e, "Write-behind flush failed; retrying after " + flushInterval);
+                try {
+                    Thread.sleep(flushInterval.toMillis());
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void write(List<Song> batch) {
+        long start = System.nanoTime();
+        try {
+            writeBatch(batch);
+        } catch (RuntimeException e) {
+            writeOneByOne(batch, start);
+            return;
+        }
+        evict(batch);
+        buffer.complete(batch, System.nanoTime() - start);
+    }
+
+    /**
+     * Writes each song of a failed batch on its own and drops those the database refuses.
+     * Any other failure, such as a lost connection, leaves the rest pending for the next flush.
+     */
+    private void writeOneByOne(List<Song> batch, long start) {
+        List<Song> written = new ArrayList<>(batch.size());
+        try {
+            for (Song song : batch) {
+                try {
+                    writeBatch(List.of(song));
+                    written.add(song);
+                } catch (RuntimeException e) {
+                    if (!isRefused(e)) {
+                        throw e;
+                    }
+                    log.error(e, "Write-behind dropped song " + song.getId() + ", which the database refused");
+                    buffer.drop(List.of(song));
+                }
+            }
+        } finally {
+            evict(written);
+            buffer.complete(written, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Drops the second-level cache entries the written rows make stale, since Hibernate
+     * does not see writes made with plain JDBC: the written songs, and cached query results.
+     */
+    private void evict(List<Song> written) {
+        if (written.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(written.size());
+        for (Song song : written) {
+            ids.add(song.getId());
+        }
+        entityCache.evictSongs(ids);
+        entityCache.evictQueries();
+    }
+
+    private static boolean isRefused(RuntimeException e) {
+        return e instanceof NonTransientDataAccessException && !(e instanceof DataAccessResourceFailureException);
+    }
+
+    private void writeBatch(List<Song> batch) {
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        for (Song song : batch) {
+            if (buffer.isInsert(song.getId())) {
+                inserts.add(new Object[]{song.getId(), song.getVersion(), song.getTitle(), song.getArtist(),
+                        song.getAlbum(), song.getYear()});
+            } else {
+                updates.add(new Object[]{song.getTitle(), song.getArtist(), song.getAlbum(), song.getYear(),
+                        song.getVersion(), song.getId()});
+            }
+        }
+        transactions.executeWithoutResult(status -> {
+            if (!inserts.isEmpty()) {
+                jdbc.batchUpdate(INSERT, inserts);
+            }
+            if (!updates.isEmpty()) {
+                jdbc.batchUpdate(UPDATE, updates);
+            }
+        });
+    }
+}
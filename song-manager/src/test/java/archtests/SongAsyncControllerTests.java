@@ -0,0 +1,81 @@
+package archtests;
+
+import com.example.songs.SongManagerApplication;
+import com.example.songs.model.Song;
+import com.example.songs.repository.SongRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(classes = SongManagerApplication.class, properties = "songs.execution.mode=async")
+@AutoConfigureMockMvc
+class SongAsyncControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SongRepository repository;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void getByIdShouldCompleteOnJdbcExecutor() throws Exception {
+        Song song = repository.save(new Song("Imagine", "John Lennon", "Imagine", 1971));
+
+        MvcResult started = mockMvc.perform(get("/songs/{id}", song.getId()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$.title").value("Imagine"));
+    }
+
+    @Test
+    void missingSongShouldStillMapToNotFound() throws Exception {
+        MvcResult started = mockMvc.perform(get("/songs/{id}", Long.MAX_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("Song not found"));
+    }
+
+    @Test
+    void statementsOnJdbcExecutorShouldCountTowardsTheRequest() throws Exception {
+        Song song = repository.save(new Song("Imagine", "John Lennon", "Imagine", 1971));
+
+        MvcResult started = mockMvc.perform(put("/songs/{id}", song.getId()).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Imagine\",\"artist\":\"John Lennon\",\"album\":\"Imagine\",\"year\":1972}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+
+        DistributionSummary statements = registry.get("songs.http.statements")
+                .tag("uri", "/songs/{id}").tag("method", "PUT").summary();
+        assertThat(statements.count()).isEqualTo(1);
+        assertThat(statements.max()).isPositive();
+    }
+}
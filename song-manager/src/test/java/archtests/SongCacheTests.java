@@ -0,0 +1,160 @@
+package archtests;
+
+import com.example.songs.SongManagerApplication;
+import com.example.songs.model.Song;
+import com.example.songs.model.SongChangeEvent;
+import com.example.songs.model.SongNotFoundException;
+import com.example.songs.model.SongPatch;
+import com.example.songs.repository.SongRepository;
+import com.example.songs.service.SongService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(classes = SongManagerApplication.class)
+class SongCacheTests {
+
+    @Autowired
+    private SongService songService;
+
+    @Autowired
+    private SongRepository repository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Cache cache;
+    private Cache missingCache;
+
+    @BeforeEach
+    void setUp() {
+        cache = cacheManager.getCache("songs");
+        missingCache = cacheManager.getCache("missingSongs");
+        cache.clear();
+        missingCache.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+        cache.clear();
+        missingCache.clear();
+    }
+
+    @Test
+    void getByIdShouldServeRepeatedReadsFromCache() {
+        Song saved = repository.save(new Song("Imagine", "John Lennon", "Imagine", 1971));
+
+        songService.getSongById(saved.getId());
+        repository.deleteById(saved.getId());
+
+        assertThat(songService.getSongById(saved.getId()).getTitle()).isEqualTo("Imagine");
+    }
+
+    @Test
+    void createShouldPopulateCache() {
+        Song created = songService.createSong(new Song("Hey Jude", "The Beatles", "Hey Jude", 1968));
+
+        assertThat(cache.get(created.getId(), Song.class)).isEqualTo(created);
+    }
+
+    @Test
+    void updateShouldReplaceCachedSong() {
+        Song created = songService.createSong(new Song("Imagine", "John Lennon", "Imagine", 1971));
+        songService.getSongById(created.getId());
+
+        songService.updateSong(created.getId(), new Song("Imagine", "John Lennon", "Imagine Deluxe", 1972));
+
+        assertThat(songService.getSongById(created.getId()).getAlbum()).isEqualTo("Imagine Deluxe");
+    }
+
+    @Test
+    void deleteShouldEvictCachedSong() {
+        Song created = songService.createSong(new Song("Yesterday", "The Beatles", "Help!", 1965));
+
+        songService.deleteSong(created.getId());
+
+        assertThat(cache.get(created.getId())).isNull();
+    }
+
+    @Test
+    void missingIdShouldBeRememberedUntilASongTakesIt() {
+        long missingId = Long.MAX_VALUE - 1;
+
+        assertThatThrownBy(() -> songService.getSongById(missingId)).isInstanceOf(SongNotFoundException.class);
+        assertThat(missingCache.get(missingId)).isNotNull();
+
+        Song song = new Song("Late Arrival", "Artist", "Album", 2020);
+        song.setId(missingId);
+        songService.forgetMissingSong(SongChangeEvent.created(song));
+
+        assertThat(missingCache.get(missingId)).isNull();
+    }
+
+    @Test
+    void existingSongsShouldNotBeKeptInMissingCache() {
+        Song saved = repository.save(new Song("Imagine", "John Lennon", "Imagine", 1971));
+
+        repository.findById(saved.getId());
+
+        assertThat(missingCache.get(saved.getId())).isNull();
+    }
+
+    @Test
+    void findByIdShouldBeServedFromSecondLevelCache() {
+        Song saved = repository.save(new Song("Imagine", "John Lennon", "Imagine", 1971));
+        Statistics statistics = statistics();
+
+        repository.findById(saved.getId());
+        repository.findById(saved.getId());
+
+        assertThat(statistics.getDomainDataRegionStatistics(Song.class.getName()).getHitCount()).isPositive();
+    }
+
+    @Test
+    void findFirstByTitleShouldBeServedFromQueryCache() {
+        repository.save(new Song("Yesterday", "The Beatles", "Help!", 1965));
+        Statistics statistics = statistics();
+
+        repository.findFirstByTitle("Yesterday");
+        long executions = statistics.getQueryExecutionCount();
+        assertThat(repository.findFirstByTitle("Yesterday")).isPresent();
+
+        assertThat(statistics.getQueryCacheHitCount()).isPositive();
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(executions);
+    }
+
+    @Test
+    void versionedPatchShouldKeepOtherSongsInSecondLevelCache() {
+        Song patched = repository.save(new Song("Imagine", "John Lennon", "Imagine", 1971));
+        Song other = repository.save(new Song("Yesterday", "The Beatles", "Help!", 1965));
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        SongPatch patch = new SongPatch();
+        patch.setYear(1972);
+
+        songService.patchSongAtVersion(patched.getId(), patch, patched.getVersion());
+
+        assertThat(sessionFactory.getCache().containsEntity(Song.class, other.getId())).isTrue();
+        assertThat(repository.findById(patched.getId()).orElseThrow().getYear()).isEqualTo(1972);
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
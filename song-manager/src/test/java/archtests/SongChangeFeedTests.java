@@ -0,0 +1,147 @@
+package archtests;
+
+import com.example.songs.SongManagerApplication;
+import com.example.songs.model.Song;
+import com.example.songs.model.SongChange;
+import com.example.songs.model.SongChangeEvent;
+import com.example.songs.model.SongChangeLog;
+import com.example.songs.model.SongChangesExpiredException;
+import com.example.songs.repository.SongRepository;
+import com.example.songs.service.SongChangeFeedService;
+import com.example.songs.service.SongService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest(classes = SongManagerApplication.class)
+@AutoConfigureMockMvc
+class SongChangeFeedTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SongService songService;
+
+    @Autowired
+    private SongChangeFeedService feedService;
+
+    @Autowired
+    private SongRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void logShouldKeepOnlyTheNewestChanges() {
+        SongChangeLog log = new SongChangeLog(2);
+        for (long id = 1; id <= 3; id++) {
+            log.append(SongChangeEvent.deleted(id));
+        }
+
+        assertThat(log.readAfter(1, 10)).extracting(SongChange::getSongId).containsExactly(2L, 3L);
+        assertThat(log.readAfter(2, 1)).extracting(SongChange::getSequence).containsExactly(3L);
+        assertThat(log.readAfter(3, 10)).isEmpty();
+        assertThatThrownBy(() -> log.readAfter(0, 10)).isInstanceOf(SongChangesExpiredException.class);
+        assertThatThrownBy(() -> log.readAfter(4, 10)).isInstanceOf(SongChangesExpiredException.class);
+    }
+
+    @Test
+    void subscriberShouldReceiveChangesInOrderAcrossBatches() {
+        SongChangeFeedService feed = new SongChangeFeedService(10, Runnable::run, 2);
+        List<SongChange> received = new ArrayList<>();
+        feed.subscribe(null, received::add);
+
+        for (long id = 1; id <= 5; id++) {
+            feed.onSongChanged(SongChangeEvent.deleted(id));
+        }
+
+        assertThat(received).extracting(SongChange::getSequence).containsExactly(1L, 2L, 3L, 4L, 5L);
+    }
+
+    @Test
+    void subscriberBehindTheLogShouldBeToldToResync() {
+        SongChangeFeedService feed = new SongChangeFeedService(2, Runnable::run, 10);
+        for (long id = 1; id <= 5; id++) {
+            feed.onSongChanged(SongChangeEvent.deleted(id));
+        }
+        List<SongChange> received = new ArrayList<>();
+
+        feed.subscribe(1L, received::add);
+
+        assertThat(received).hasSize(1);
+        assertThat(received.get(0).isResync()).isTrue();
+        assertThat(received.get(0).getSequence()).isEqualTo(5L);
+        assertThat(feed.getSubscriberCount()).isZero();
+    }
+
+    @Test
+    void failingSubscriberShouldBeDropped() {
+        SongChangeFeedService feed = new SongChangeFeedService(10, Runnable::run, 10);
+        feed.subscribe(null, change -> {
+            throw new IOException("Broken pipe");
+        });
+
+        feed.onSongChanged(SongChangeEvent.deleted(1L));
+
+        assertThat(feed.getSubscriberCount()).isZero();
+    }
+
+    @Test
+    void changesShouldBeLoggedOnlyOnceCommitted() {
+        Song song = songService.createSong(new Song("Imagine", "John Lennon", "Imagine", 1971));
+        long since = feedService.getLastSequence();
+        TransactionTemplate transactions = new TransactionTemplate(transactionManager);
+
+        transactions.executeWithoutResult(status -> {
+            songService.updateSong(song.getId(), new Song("Imagine", "John Lennon", "Imagine", 1972));
+            assertThat(feedService.getLastSequence()).isEqualTo(since);
+            status.setRollbackOnly();
+        });
+        assertThat(feedService.getLastSequence()).isEqualTo(since);
+
+        transactions.executeWithoutResult(status ->
+                songService.updateSong(song.getId(), new Song("Imagine", "John Lennon", "Imagine", 1972)));
+        assertThat(feedService.getLastSequence()).isEqualTo(since + 1);
+    }
+
+    @Test
+    void changesShouldBeStreamedAsServerSentEvents() throws Exception {
+        long since = feedService.getLastSequence();
+        Song song = songService.createSong(new Song("Imagine", "John Lennon", "Imagine", 1971));
+
+        MvcResult result = mockMvc.perform(get("/songs/changes").param("since", Long.toString(since)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = "";
+        for (int i = 0; i < 100 && !body.contains("Imagine"); i++) {
+            Thread.sleep(50);
+            body = result.getResponse().getContentAsString();
+        }
+        assertThat(body)
+                .contains("id:" + (since + 1))
+                .contains("event:created")
+                .contains("\"songId\":" + song.getId());
+    }
+}
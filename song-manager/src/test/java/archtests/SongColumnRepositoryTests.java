@@ -0,0 +1,182 @@
+package archtests;
+
+import com.example.songs.SongColumnRepository;
+import com.example.songs.model.LongIntHashMap;
+import com.example.songs.model.Song;
+import com.example.songs.model.SongCatalogVersion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SongColumnRepositoryTests {
+
+    private SongColumnRepository store;
+
+    @BeforeEach
+    void setUp() {
+        store = new SongColumnRepository();
+        store.load(Stream.of(
+                song(3L, "Imagine", "John Lennon", "Imagine", 1971),
+                song(5L, "Jealous Guy", "John Lennon", "Imagine", 1971),
+                song(8L, "Help!", "The Beatles", "Help!", 1965)));
+    }
+
+    @Test
+    void shouldServeLoadedSongsByIdAndTitle() {
+        assertThat(store.findById(5L)).contains(song(5L, "Jealous Guy", "John Lennon", "Imagine", 1971));
+        assertThat(store.findById(4L)).isEmpty();
+        assertThat(store.findFirstByTitle("Help!").map(Song::getId)).contains(8L);
+        assertThat(store.findById(3L).orElseThrow()).isNotSameAs(store.findById(3L).orElseThrow());
+    }
+
+    @Test
+    void shouldPageInIdOrder() {
+        assertThat(store.findByIdGreaterThanOrderByIdAsc(3L, PageRequest.of(0, 1))).extracting(Song::getId).containsExactly(5L);
+        assertThat(store.findByIdGreaterThanOrderByIdAsc(5L, PageRequest.of(0, 10))).extracting(Song::getId).containsExactly(8L);
+        assertThat(store.findAll()).extracting(Song::getId).containsExactly(3L, 5L, 8L);
+    }
+
+    @Test
+    void saveShouldAssignIdsAndCheckVersions() {
+        Song created = store.save(new Song("Woman", "John Lennon", "Double Fantasy", 1980));
+        assertThat(created.getId()).isEqualTo(9L);
+
+        Song stale = store.findById(5L).orElseThrow();
+        Song fresh = store.findById(5L).orElseThrow();
+        fresh.setYear(1972);
+        assertThat(store.save(fresh).getVersion()).isEqualTo(1L);
+        assertThatThrownBy(() -> store.save(stale)).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(store.findById(5L).orElseThrow().getYear()).isEqualTo(1972);
+    }
+
+    @Test
+    void deleteShouldLeaveOtherRowsReachable() {
+        store.deleteById(5L);
+        assertThat(store.deleteExistingByIdIn(List.of(5L, 8L))).containsExactly(8L);
+
+        assertThat(store.findAll()).extracting(Song::getId).containsExactly(3L);
+        assertThat(store.findCatalogVersion().toTag()).isEqualTo(new SongCatalogVersion(1L, 8L, 0L).toTag());
+    }
+
+    @Test
+    void idZeroShouldNotResolveToAnyRow() {
+        store.deleteById(0L);
+
+        assertThat(store.findById(0L)).isEmpty();
+        assertThat(store.existsById(0L)).isFalse();
+        assertThat(store.findAll()).extracting(Song::getId).containsExactly(3L, 5L, 8L);
+    }
+
+    @Test
+    void idIndexShouldIgnoreKeyZero() {
+        LongIntHashMap index = new LongIntHashMap(4);
+        index.put(7L, 0);
+
+        assertThat(index.get(0L, -1)).isEqualTo(-1);
+        assertThat(index.remove(0L)).isFalse();
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.get(7L, -1)).isEqualTo(0);
+    }
+
+    @Test
+    void idIndexShouldFindCollidingKeysAfterRemove() {
+        LongIntHashMap index = new LongIntHashMap(4);
+        for (long key = 1; key <= 4; key++) {
+            index.put(key, (int) key * 10);
+        }
+
+        assertThat(index.remove(2L)).isTrue();
+        assertThat(index.get(2L, -1)).isEqualTo(-1);
+        assertThat(index.get(1L, -1)).isEqualTo(10);
+        assertThat(index.get(3L, -1)).isEqualTo(30);
+        assertThat(index.get(4L, -1)).isEqualTo(40);
+    }
+
+    @Test
+    void shouldSortByAnyProperty() {
+        assertThat(store.findAll(Sort.by("year").descending().and(Sort.by("title"))))
+                .extracting(Song::getId).containsExactly(3L, 5L, 8L);
+        assertThat(store.findAll(Sort.by(Sort.Order.asc("title").ignoreCase())))
+                .extracting(Song::getId).containsExactly(8L, 3L, 5L);
+        assertThat(store.findAll(PageRequest.of(1, 2, Sort.by("id").descending())).getContent())
+                .extracting(Song::getId).containsExactly(3L);
+    }
+
+    @Test
+    void shouldQueryByExample() {
+        Song probe = new Song(null, "john lennon", null, 1971);
+        Example<Song> byArtist = Example.of(probe, ExampleMatcher.matching().withIgnoreCase().withIgnorePaths("version"));
+
+        assertThat(store.findAll(byArtist)).extracting(Song::getId).containsExactly(3L, 5L);
+        assertThat(store.count(byArtist)).isEqualTo(2);
+        assertThatThrownBy(() -> store.findOne(byArtist)).isInstanceOf(IncorrectResultSizeDataAccessException.class);
+
+        Song prefix = new Song("Jeal", null, null, 0);
+        Example<Song> byTitle = Example.of(prefix, ExampleMatcher.matching()
+                .withMatcher("title", ExampleMatcher.GenericPropertyMatcher::startsWith)
+                .withIgnorePaths("year", "version"));
+        assertThat(store.findOne(byTitle).map(Song::getId)).contains(5L);
+        assertThat(store.exists(Example.of(new Song("Help!", null, null, 1971),
+                ExampleMatcher.matchingAny().withIgnorePaths("version")))).isTrue();
+    }
+
+    @Test
+    void streamShouldReadAcrossBatches() {
+        store.saveAll(Stream.generate(() -> new Song("Untitled", "John Lennon", "Imagine", 1971))
+                .limit(2500).collect(Collectors.toList()));
+
+        try (Stream<Song> songs = store.streamAllByOrderByIdAsc()) {
+            assertThat(songs.mapToLong(Song::getId).toArray()).hasSize(2503).isSorted();
+        }
+    }
+
+    @Test
+    void idIndexShouldMatchHashMapUnderChurn() {
+        LongIntHashMap index = new LongIntHashMap(4);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long key = 1 + random.nextInt(2000);
+            if (random.nextBoolean()) {
+                index.put(key, i);
+                expected.put(key, i);
+            } else {
+                assertThat(index.remove(key)).isEqualTo(expected.remove(key) != null);
+            }
+        }
+        assertThat(index.size()).isEqualTo(expected.size());
+        for (long key = 1; key <= 2000; key++) {
+            assertThat(index.get(key, -1)).isEqualTo(expected.getOrDefault(key, -1));
+        }
+    }
+
+    @Test
+    void shouldEncodeRepeatedArtistsOnce() {
+        store.saveAll(Stream.generate(() -> new Song("Untitled", "John Lennon", "Imagine", 1971))
+                .limit(1000).collect(Collectors.toList()));
+
+        assertThat(store.getStats().get("songs")).isEqualTo(1003);
+        assertThat(store.getStats().get("bytesPerSong").longValue()).isLessThan(200);
+    }
+
+    private static Song song(Long id, String title, String artist, String album, int year) {
+        Song song = new Song(title, artist, album, year);
+        song.setId(id);
+        return song;
+    }
+}
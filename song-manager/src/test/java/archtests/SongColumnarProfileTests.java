@@ -0,0 +1,63 @@
+package archtests;
+
+import com.example.songs.SongColumnRepository;
+import com.example.songs.SongManagerApplication;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(classes = SongManagerApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("columnar")
+class SongColumnarProfileTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SongColumnRepository store;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Test
+    void crudShouldRunAgainstColumnStore() throws Exception {
+        String body = mockMvc.perform(post("/songs").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Imagine\",\"artist\":\"John Lennon\",\"album\":\"Imagine\",\"year\":1971}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        Number id = JsonPath.read(body, "$.id");
+        assertThat(store.findById(id.longValue())).isPresent();
+
+        mockMvc.perform(get("/songs/by-title").param("title", "Imagine"))
+                .andExpect(jsonPath("$.id").value(id));
+        mockMvc.perform(put("/songs/{id}", id).header("If-Match", "\"0\"").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Imagine\",\"artist\":\"John Lennon\",\"album\":\"Imagine\",\"year\":1972}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""));
+        mockMvc.perform(put("/songs/{id}", id).header("If-Match", "\"0\"").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Imagine\",\"artist\":\"John Lennon\",\"album\":\"Imagine\",\"year\":1973}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(patch("/songs/{id}", id).header("If-Match", "\"1\"").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"album\":\"Imagine (Remastered)\"}"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("ETag", "\"2\""));
+        mockMvc.perform(get("/songs/{id}", id))
+                .andExpect(jsonPath("$.album").value("Imagine (Remastered)"));
+        mockMvc.perform(get("/songs/suggest").param("prefix", "ima"))
+                .andExpect(jsonPath("$[0]").value("Imagine"));
+        mockMvc.perform(delete("/songs/{id}", id)).andExpect(status().isNoContent());
+        mockMvc.perform(get("/songs/{id}", id)).andExpect(status().isNotFound());
+        assertThat(cacheManager.getCache("missingSongs").get(id.longValue())).isNotNull();
+    }
+}
@@ -0,0 +1,108 @@
+package archtests;
+
+import com.example.songs.SongBufferedOutputMessage;
+import com.example.songs.SongManagerApplication;
+import com.example.songs.model.Song;
+import com.example.songs.repository.SongRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = SongManagerApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class SongCompressionTests {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private SongRepository repository;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setUp() {
+        List<Song> songs = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            songs.add(new Song("Song " + i, "Artist " + i % 10, "Album " + i % 20, 1950 + i % 75));
+        }
+        repository.saveAll(songs);
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void largeResponsesShouldBeGzipped() throws Exception {
+        HttpResponse<byte[]> response = get("/songs", "application/json");
+
+        assertThat(response.headers().firstValue("Content-Encoding")).hasValue("gzip");
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+            byte[] json = in.readAllBytes();
+            assertThat(json.length).isGreaterThan(response.body().length * 3);
+        }
+    }
+
+    @Test
+    void responsesBelowThresholdShouldNotBeCompressed() throws Exception {
+        HttpResponse<byte[]> response = get("/songs/page?size=1", "application/json");
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Encoding")).isEmpty();
+    }
+
+    @Test
+    void singleSongShouldNotBeCompressed() throws Exception {
+        long id = repository.findAll().get(0).getId();
+
+        HttpResponse<byte[]> response = get("/songs/" + id, "application/json");
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Encoding")).isEmpty();
+    }
+
+    @Test
+    void bufferedBodyShouldKeepItsLengthUntilItOutgrowsTheThreshold() throws IOException {
+        MockHttpOutputMessage small = new MockHttpOutputMessage();
+        SongBufferedOutputMessage buffered = new SongBufferedOutputMessage(small, 4);
+        buffered.getBody().write(new byte[] {'[', ']'});
+        buffered.getBody().flush();
+        assertThat(small.getBodyAsBytes()).isEmpty();
+        buffered.finish();
+        assertThat(small.getHeaders().getContentLength()).isEqualTo(2);
+        assertThat(small.getBodyAsString()).isEqualTo("[]");
+
+        MockHttpOutputMessage large = new MockHttpOutputMessage();
+        buffered = new SongBufferedOutputMessage(large, 4);
+        buffered.getBody().write(new byte[] {'[', '1', ','});
+        buffered.getBody().write(new byte[] {'2', ']'});
+        assertThat(large.getBodyAsString()).isEqualTo("[1,2]");
+        buffered.finish();
+        assertThat(large.getHeaders().getContentLength()).isEqualTo(-1);
+    }
+
+    private HttpResponse<byte[]> get(String path, String accept) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Accept", accept)
+                .header("Accept-Encoding", "gzip")
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+}
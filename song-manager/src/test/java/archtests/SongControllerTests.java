@@ -0,0 +1,423 @@
+package archtests;
+
+import com.example.songs.SongManagerApplication;
+import com.example.songs.SongStreamHttpMessageConverter;
+import com.example.songs.model.Song;
+import com.example.songs.repository.SongRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.Matchers.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(classes = SongManagerApplication.class)
+@AutoConfigureMockMvc
+class SongControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SongRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+        repository.save(new Song("Imagine", "John Lennon", "Imagine", 1971));
+        repository.save(new Song("Bohemian Rhapsody", "Queen", "A Night at the Opera", 1975));
+        repository.save(new Song("Yesterday", "The Beatles", "Help!", 1965));
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void getAllShouldStreamJsonArray() throws Exception {
+        mockMvc.perform(get("/songs"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].title").value("Imagine"))
+                .andExpect(jsonPath("$[2].title").value("Yesterday"));
+    }
+
+    @Test
+    void pageShouldFollowCursorToTheEnd() throws Exception {
+        String body = mockMvc.perform(get("/songs/page").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.nextCursor", notNullValue()))
+                .andReturn().getResponse().getContentAsString();
+        String cursor = JsonPath.read(body, "$.nextCursor");
+
+        mockMvc.perform(get("/songs/page").param("size", "2").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].title").value("Yesterday"))
+                .andExpect(jsonPath("$.nextCursor").value(nullValue()));
+    }
+
+    @Test
+    void pageShouldRejectMalformedCursor() throws Exception {
+        mockMvc.perform(get("/songs/page").param("cursor", "%%%"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void batchShouldInsertJsonArray() throws Exception {
+        String body = "[{\"title\":\"Numb\",\"artist\":\"Linkin Park\",\"album\":\"Meteora\",\"year\":2003},"
+                + "{\"title\":\"Faint\",\"artist\":\"Linkin Park\",\"album\":\"Meteora\",\"year\":2003}]";
+
+        mockMvc.perform(post("/songs/batch").param("chunkSize", "1")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.created").value(2));
+
+        assertThat(repository.count()).isEqualTo(5);
+    }
+
+    @Test
+    void batchShouldInsertNdjson() throws Exception {
+        String body = "{\"title\":\"Numb\",\"artist\":\"Linkin Park\",\"album\":\"Meteora\",\"year\":2003}\n"
+                + "{\"title\":\"Faint\",\"artist\":\"Linkin Park\",\"album\":\"Meteora\",\"year\":2003}\n";
+
+        mockMvc.perform(post("/songs/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON).content(body))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.created").value(2));
+
+        assertThat(repository.findFirstByTitle("Faint")).isPresent();
+    }
+
+    @Test
+    void batchShouldRejectMalformedBody() throws Exception {
+        mockMvc.perform(post("/songs/batch")
+                        .contentType(MediaType.APPLICATION_JSON).content("[{\"title\":"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.created").value(0));
+    }
+
+    @Test
+    void batchShouldReportRowsCommittedBeforeMalformedRow() throws Exception {
+        String body = "{\"title\":\"Numb\",\"artist\":\"Linkin Park\",\"album\":\"Meteora\",\"year\":2003}\n"
+                + "{\"title\":\"Faint\",\"artist\":\"Linkin Park\",\"album\":\"Meteora\",\"year\":2003}\n"
+                + "{\"title\":\"Broken\",\"year\":\n";
+
+        mockMvc.perform(post("/songs/batch").param("chunkSize", "1")
+                        .contentType(MediaType.APPLICATION_NDJSON).content(body))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.created").value(2));
+
+        assertThat(repository.count()).isEqualTo(5);
+    }
+
+    @Test
+    void suggestShouldSeeSongsCreatedThroughTheApi() throws Exception {
+        mockMvc.perform(post("/songs").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Suggestible\",\"artist\":\"A\",\"album\":\"B\",\"year\":2001}"))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/songs/suggest").param("prefix", "sugg"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasItem("Suggestible")));
+    }
+
+    @Test
+    void getByIdShouldReturnNotFoundForMissingSong() throws Exception {
+        mockMvc.perform(get("/songs/{id}", Long.MAX_VALUE))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("Song not found"));
+    }
+
+    @Test
+    void getByIdShouldAnswerMatchingETagWithNotModified() throws Exception {
+        Long id = repository.findFirstByTitle("Imagine").orElseThrow().getId();
+        String etag = mockMvc.perform(get("/songs/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/songs/{id}", id).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void updateShouldChangeETagAndRejectStaleIfMatch() throws Exception {
+        Long id = repository.findFirstByTitle("Yesterday").orElseThrow().getId();
+        String etag = mockMvc.perform(get("/songs/{id}", id)).andReturn().getResponse().getHeader("ETag");
+        String body = "{\"title\":\"Yesterday\",\"artist\":\"The Beatles\",\"album\":\"1\",\"year\":2000}";
+
+        String updatedTag = mockMvc.perform(put("/songs/{id}", id).header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(updatedTag).isNotEqualTo(etag);
+
+        mockMvc.perform(put("/songs/{id}", id).header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(get("/songs/{id}", id).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.album").value("1"));
+    }
+
+    @Test
+    void weakIfMatchShouldFailAndBinaryBodiesShouldHaveTheirOwnTag() throws Exception {
+        Long id = repository.findFirstByTitle("Yesterday").orElseThrow().getId();
+        String etag = mockMvc.perform(get("/songs/{id}", id)).andReturn().getResponse().getHeader("ETag");
+        String cborTag = mockMvc.perform(get("/songs/{id}", id).accept(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(etag).doesNotStartWith("W/");
+        assertThat(cborTag).isNotEqualTo(etag).doesNotStartWith("W/");
+
+        mockMvc.perform(patch("/songs/{id}", id).header("If-Match", "W/" + etag)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"album\":\"1\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(patch("/songs/{id}", id).header("If-Match", cborTag)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"album\":\"1\"}"))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void getAllShouldUseCatalogWatermarkAsETag() throws Exception {
+        String etag = mockMvc.perform(get("/songs"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/songs").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        repository.save(new Song("Help!", "The Beatles", "Help!", 1965));
+
+        mockMvc.perform(get("/songs").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(4)));
+    }
+
+    @Test
+    void exportShouldWriteOneJsonObjectPerLine() throws Exception {
+        String body = mockMvc.perform(get("/songs/export").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(JsonPath.<String>read(lines[0], "$.title")).isEqualTo("Imagine");
+        assertThat(JsonPath.<String>read(lines[2], "$.title")).isEqualTo("Yesterday");
+    }
+
+    @Test
+    void exportShouldWriteQuotedCsv() throws Exception {
+        repository.save(new Song("Hello, \"World\"", "Artist", "Album", 2000));
+
+        String body = mockMvc.perform(get("/songs/export").accept("text/csv"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        String[] lines = body.split("\r\n");
+        assertThat(lines).hasSize(5);
+        assertThat(lines[0]).isEqualTo("id,title,artist,album,year");
+        assertThat(lines[1]).endsWith(",Imagine,John Lennon,Imagine,1971");
+        assertThat(lines[4]).endsWith(",\"Hello, \"\"World\"\"\",Artist,Album,2000");
+    }
+
+    @Test
+    void exportShouldGzipWhenAsked() throws Exception {
+        byte[] body = mockMvc.perform(get("/songs/export").param("gzip", "true").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertThat(text.split("\n")).hasSize(3);
+        }
+    }
+
+    @Test
+    void importShouldAcceptCsvAndReportProgress() throws Exception {
+        String csv = "id,title,artist,album,year\r\n,Help!,The Beatles,Help!,1965\r\n,Imagine,John Lennon,Imagine,1971\r\n";
+
+        MvcResult result = mockMvc.perform(post("/songs/import").param("importId", "nightly").contentType("text/csv").content(csv))
+                .andExpect(request().asyncStarted())
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "http://localhost/songs/import/nightly"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(jsonPath("$.id").value("nightly"))
+                .andExpect(jsonPath("$.status").value("queued"));
+
+        mockMvc.perform(get("/songs/import/{id}", "nightly"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("completed"))
+                .andExpect(jsonPath("$.songsCreated").value(2))
+                .andExpect(jsonPath("$.recordsRead").value(2));
+        mockMvc.perform(get("/songs/import/{id}", "unknown"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void importWithoutIdShouldBeLocatedBeforeItsRecordsAreRead() throws Exception {
+        String csv = "id,title,artist,album,year\r\n,Help!,The Beatles,Help!,1965\r\n";
+
+        MvcResult result = mockMvc.perform(post("/songs/import").contentType("text/csv").content(csv))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", startsWith("http://localhost/songs/import/")))
+                .andReturn();
+        String location = result.getResponse().getHeader("Location");
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(jsonPath("$.id").value(location.substring(location.lastIndexOf('/') + 1)));
+
+        mockMvc.perform(get(location))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("completed"))
+                .andExpect(jsonPath("$.songsCreated").value(1));
+    }
+
+    @Test
+    void statsShouldFollowCreatedSongs() throws Exception {
+        mockMvc.perform(post("/songs").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Stats Song\",\"artist\":\"Stats Artist\",\"album\":\"B\",\"year\":1901}"))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/songs/stats/by-artist"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['Stats Artist']").value(1));
+        mockMvc.perform(get("/songs/stats/by-year"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['1901']").value(1));
+    }
+
+    @Test
+    void batchEndpointsShouldAnswerPerId() throws Exception {
+        Long id = repository.findFirstByTitle("Imagine").orElseThrow().getId();
+        String ids = "[" + id + ", -1]";
+
+        mockMvc.perform(post("/songs/get-batch").contentType(MediaType.APPLICATION_JSON).content(ids))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['" + id + "'].title").value("Imagine"))
+                .andExpect(jsonPath("$['-1']").value(nullValue()));
+
+        mockMvc.perform(post("/songs/delete-batch").contentType(MediaType.APPLICATION_JSON).content(ids))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['" + id + "']").value(true))
+                .andExpect(jsonPath("$['-1']").value(false));
+        mockMvc.perform(get("/songs/{id}", id))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getByTitleShouldFindSongOrReturnNotFound() throws Exception {
+        mockMvc.perform(get("/songs/by-title").param("title", "Yesterday"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.artist").value("The Beatles"));
+        mockMvc.perform(get("/songs/by-title").param("title", "Unknown"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void patchShouldChangeOnlyGivenFields() throws Exception {
+        Long id = repository.findFirstByTitle("Imagine").orElseThrow().getId();
+
+        mockMvc.perform(patch("/songs/{id}", id).contentType(MediaType.APPLICATION_JSON).content("{\"year\":1972}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(header().string("Vary", containsString("Accept")))
+                .andExpect(jsonPath("$.title").value("Imagine"))
+                .andExpect(jsonPath("$.artist").value("John Lennon"))
+                .andExpect(jsonPath("$.year").value(1972));
+    }
+
+    @Test
+    void patchWithIfMatchShouldSkipBodyAndRejectStaleTag() throws Exception {
+        Long id = repository.findFirstByTitle("Yesterday").orElseThrow().getId();
+        String etag = mockMvc.perform(get("/songs/{id}", id)).andReturn().getResponse().getHeader("ETag");
+
+        String patchedTag = mockMvc.perform(patch("/songs/{id}", id).header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"album\":\"1\"}"))
+                .andExpect(status().isNoContent())
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(patchedTag).isNotEqualTo(etag);
+
+        mockMvc.perform(get("/songs/{id}", id))
+                .andExpect(header().string("ETag", patchedTag))
+                .andExpect(jsonPath("$.album").value("1"))
+                .andExpect(jsonPath("$.title").value("Yesterday"));
+        mockMvc.perform(patch("/songs/{id}", id).header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"album\":\"Help!\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(patch("/songs/{id}", Long.MAX_VALUE).header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"album\":\"Help!\"}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getAllShouldNegotiateBinaryFormats() throws Exception {
+        byte[] cbor = mockMvc.perform(get("/songs").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string("Vary", containsString("Accept")))
+                .andReturn().getResponse().getContentAsByteArray();
+        byte[] smile = mockMvc.perform(get("/songs").accept(SongStreamHttpMessageConverter.APPLICATION_SMILE))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        byte[] json = mockMvc.perform(get("/songs")).andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode fromCbor = new ObjectMapper(new CBORFactory()).readTree(cbor);
+        JsonNode fromSmile = new ObjectMapper(new SmileFactory()).readTree(smile);
+        assertThat(fromCbor).isEqualTo(new ObjectMapper().readTree(json));
+        assertThat(fromSmile).isEqualTo(fromCbor);
+        assertThat(fromCbor.get(1).get("title").asText()).isEqualTo("Bohemian Rhapsody");
+        assertThat(smile.length).isLessThan(json.length);
+    }
+
+    @Test
+    void getAllShouldWriteColumnarJson() throws Exception {
+        mockMvc.perform(get("/songs").accept(SongStreamHttpMessageConverter.COLUMNAR_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.columns", contains("id", "title", "artist", "album", "year", "version")))
+                .andExpect(jsonPath("$.rows", hasSize(3)))
+                .andExpect(jsonPath("$.rows[0][1]").value("Imagine"))
+                .andExpect(jsonPath("$.rows[2][4]").value(1965));
+    }
+
+    @Test
+    void singleSongShouldBeAvailableAsCbor() throws Exception {
+        Long id = repository.findFirstByTitle("Imagine").orElseThrow().getId();
+
+        byte[] body = mockMvc.perform(get("/songs/{id}", id).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string("ETag", endsWith("-cbor\"")))
+                .andExpect(header().string("Vary", containsString("Accept")))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertThat(new ObjectMapper(new CBORFactory()).readTree(body).get("artist").asText()).isEqualTo("John Lennon");
+    }
+}
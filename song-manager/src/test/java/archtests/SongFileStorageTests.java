@@ -0,0 +1,43 @@
+package archtests;
+
+import com.example.songs.SongManagerApplication;
+import com.example.songs.model.Song;
+import com.example.songs.service.SongService;
+import com.example.songs.service.SongSuggestService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SongFileStorageTests {
+
+    @TempDir
+    Path storageDir;
+
+    @Test
+    void songsShouldSurviveRestart() {
+        Long id;
+        try (ConfigurableApplicationContext context = start()) {
+            id = context.getBean(SongService.class).createSong(new Song("Imagine", "John Lennon", "Imagine", 1971)).getId();
+        }
+
+        try (ConfigurableApplicationContext context = start()) {
+            assertThat(context.getBean(SongService.class).getSongById(id).getTitle()).isEqualTo("Imagine");
+            assertThat(context.getBean(SongSuggestService.class).suggest("ima", 10)).containsExactly("Imagine");
+            Song next = context.getBean(SongService.class).createSong(new Song("Help!", "The Beatles", "Help!", 1965));
+            assertThat(next.getId()).isGreaterThan(id);
+        }
+    }
+
+    private ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(SongManagerApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("file")
+                .run("--songs.storage.dir=" + storageDir);
+    }
+}
@@ -0,0 +1,131 @@
+package archtests;
+
+import com.example.songs.SongManagerApplication;
+import com.example.songs.model.Song;
+import com.example.songs.model.SongCsv;
+import com.example.songs.model.SongImport;
+import com.example.songs.model.SongImportRunningException;
+import com.example.songs.model.SongStream;
+import com.example.songs.repository.SongImportRepository;
+import com.example.songs.repository.SongRepository;
+import com.example.songs.service.SongImportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(classes = SongManagerApplication.class)
+class SongImportServiceTests {
+
+    private static final String CSV = "id,title,artist,album,year\r\n"
+            + ",Imagine,John Lennon,Imagine,1971\r\n"
+            + "7,Yesterday,The Beatles,Help!,1965\r\n"
+            + ",Imagine,John Lennon,Imagine,1971\r\n"
+            + ",\"Hello, \"\"World\"\"\",Artist,Album,2000\r\n"
+            + ",\"Two\nLines\",Artist,Album,2001\r\n";
+
+    @Autowired
+    private SongImportService importService;
+
+    @Autowired
+    private SongRepository repository;
+
+    @Autowired
+    private SongImportRepository importRepository;
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+        importRepository.deleteAll();
+    }
+
+    @Test
+    void csvShouldParseQuotedAndMultiLineFields() {
+        List<Song> songs = new ArrayList<>();
+        SongCsv.read(new BufferedReader(new StringReader(CSV))).forEach(songs::add);
+
+        assertThat(songs).extracting(Song::getTitle)
+                .containsExactly("Imagine", "Yesterday", "Imagine", "Hello, \"World\"", "Two\nLines");
+        assertThat(songs.get(1).getId()).isEqualTo(7L);
+    }
+
+    @Test
+    void importShouldSkipDuplicatesAndCommitInChunks() {
+        SongImport result = importService.importSongs("dedup", csv(), 2);
+
+        assertThat(result.getStatus()).isEqualTo("completed");
+        assertThat(result.getRecordsRead()).isEqualTo(5);
+        assertThat(result.getSongsCreated()).isEqualTo(4);
+        assertThat(result.getDuplicatesSkipped()).isEqualTo(1);
+        assertThat(repository.count()).isEqualTo(4);
+        assertThat(repository.findAll()).extracting(Song::getId).doesNotContain(7L);
+    }
+
+    @Test
+    void importShouldResumeAfterLastCommittedChunk() {
+        SongStream crashing = new SongStream(action -> {
+            int[] seen = {0};
+            csv().forEach(song -> {
+                if (++seen[0] == 4) {
+                    throw new IllegalStateException("crash");
+                }
+                action.accept(song);
+            });
+        });
+
+        assertThatThrownBy(() -> importService.importSongs("resume", crashing, 2))
+                .isInstanceOf(IllegalStateException.class);
+        SongImport failed = importService.getImport("resume").orElseThrow();
+        assertThat(failed.getStatus()).isEqualTo("failed");
+        assertThat(failed.getRecordsRead()).isEqualTo(2);
+        assertThat(repository.count()).isEqualTo(2);
+
+        SongImport resumed = importService.importSongs("resume", csv(), 2);
+
+        assertThat(resumed.getStatus()).isEqualTo("completed");
+        assertThat(resumed.getRecordsRead()).isEqualTo(5);
+        assertThat(resumed.getSongsCreated()).isEqualTo(4);
+        assertThat(repository.count()).isEqualTo(4);
+    }
+
+    @Test
+    void queuedImportShouldBeVisibleAndKeepEarlierProgress() {
+        importService.importSongs("queued", csv(), 2);
+
+        SongImport queued = importService.queueImport("queued");
+
+        assertThat(importService.getImport("queued").orElseThrow().getStatus()).isEqualTo("queued");
+        assertThat(queued.getRecordsRead()).isEqualTo(5);
+        assertThat(importService.queueImport("fresh").getRecordsRead()).isZero();
+    }
+
+    @Test
+    void queuedOrRunningImportShouldNotBeStartedAgain() {
+        importService.queueImport("busy");
+
+        assertThatThrownBy(() -> importService.queueImport("busy")).isInstanceOf(SongImportRunningException.class);
+        importService.failQueuedImport("busy");
+        assertThat(importService.getImport("busy").orElseThrow().getStatus()).isEqualTo("failed");
+
+        SongStream startingTwice = new SongStream(action -> {
+            assertThatThrownBy(() -> importService.importSongs("busy", csv(), 2))
+                    .isInstanceOf(SongImportRunningException.class);
+            csv().forEach(action);
+        });
+        importService.queueImport("busy");
+        assertThat(importService.importSongs("busy", startingTwice, 2).getStatus()).isEqualTo("completed");
+        assertThat(importService.queueImport("busy").getStatus()).isEqualTo("queued");
+    }
+
+    private static SongStream csv() {
+        return SongCsv.read(new BufferedReader(new StringReader(CSV)));
+    }
+}
@@ -0,0 +1,40 @@
+package archtests;
+
+import com.example.songs.SongManagerApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = SongManagerApplication.class)
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+class SongMetricsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void prometheusShouldExposeRequestServiceAndStatementMetrics() throws Exception {
+        mockMvc.perform(get("/songs/page")).andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket")))
+                .andExpect(content().string(containsString(
+                        "songs_service_method_seconds_count{class=\"SongService\",exception=\"none\",method=\"getSongPage\",}")))
+                .andExpect(content().string(containsString("songs_http_statements_count{method=\"GET\",uri=\"/songs/page\",}")))
+                .andExpect(content().string(containsString("songs_jdbc_statements_total")))
+                .andExpect(content().string(containsString("hikaricp_connections_acquire_seconds")))
+                .andExpect(content().string(containsString("hibernate_second_level_cache_requests")))
+                .andExpect(content().string(containsString("hibernate_cache_query_requests_total")))
+                .andExpect(content().string(containsString("songs_singleflight_coalesced_total{lookup=\"songIdLoads\",}")));
+    }
+}
@@ -2,6 +2,7 @@ package archtests;
 
 import com.example.songs.SongManagerApplication;
 import com.example.songs.model.Song;
+import com.example.songs.model.StringCanonicalizer;
 import com.example.songs.repository.SongRepository;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,6 +19,9 @@ public class SongRepositoryTests {
     @Autowired
     private SongRepository underTest;
 
+    @Autowired
+    private StringCanonicalizer names;
+
     @BeforeEach
     void setUp() {
         underTest.deleteAll();
@@ -30,6 +34,14 @@ public class SongRepositoryTests {
         underTest.deleteAll();
     }
 
+    @Test
+    void savedSongShouldShareArtistAndAlbumWithTheCanonicalizer() {
+        Song song = underTest.save(new Song("Jealous Guy", new String("John Lennon"), new String("Imagine"), 1971));
+
+        assertThat(song.getArtist()).isSameAs(names.canonicalize("John Lennon"));
+        assertThat(song.getAlbum()).isSameAs(names.canonicalize("Imagine"));
+    }
+
     @Test
     void shouldSaveAndFindSong() {
         Song song = new Song("Space Oddity", "David Bowie", "Space Oddity", 1969);
@@ -120,4 +132,14 @@ public class SongRepositoryTests {
         boolean exists = underTest.existsById(id);
         assertThat(exists).isTrue();
     }
+
+    @Test
+    void deleteExistingByIdInShouldReportOnlyDeletedIds() {
+        Long imagine = underTest.findFirstByTitle("Imagine").orElseThrow().getId();
+
+        List<Long> deleted = underTest.deleteExistingByIdIn(List.of(imagine, -1L));
+
+        assertThat(deleted).containsExactly(imagine);
+        assertThat(underTest.findAll()).extracting(Song::getTitle).containsExactly("Bohemian Rhapsody");
+    }
 }
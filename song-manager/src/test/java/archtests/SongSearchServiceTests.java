@@ -0,0 +1,122 @@
+package archtests;
+
+import com.example.songs.model.Song;
+import com.example.songs.model.SongChangeEvent;
+import com.example.songs.model.SongSearchResult;
+import com.example.songs.repository.SongRepository;
+import com.example.songs.service.SongSearchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class SongSearchServiceTests {
+
+    private final Map<Long, Song> songs = new HashMap<>();
+    private SongSearchService searchService;
+
+    @BeforeEach
+    void setUp() {
+        SongRepository repository = mock(SongRepository.class);
+        given(repository.findAllById(anyIterable())).willAnswer(invocation -> {
+            List<Song> found = new ArrayList<>();
+            for (Object id : invocation.<Iterable<?>>getArgument(0)) {
+                found.add(songs.get(id));
+            }
+            return found;
+        });
+        searchService = new SongSearchService(repository);
+        add(1L, "Imagine", "John Lennon", "Imagine");
+        add(2L, "Jealous Guy", "John Lennon", "Imagine");
+        add(3L, "Bohemian Rhapsody", "Queen", "A Night at the Opera");
+        add(4L, "Johnny B. Goode", "Chuck Berry", "Berry Is on Top");
+    }
+
+    @Test
+    void shouldRankTitleMatchesAboveAlbumMatches() {
+        SongSearchResult result = searchService.search("imagine", 0, 10);
+
+        assertThat(result.getTotal()).isEqualTo(2);
+        assertThat(result.getItems()).extracting(Song::getId).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void shouldMatchTokenPrefixesAcrossFields() {
+        SongSearchResult result = searchService.search("joh", 0, 10);
+
+        assertThat(result.getItems()).extracting(Song::getId).containsExactly(4L, 1L, 2L);
+    }
+
+    @Test
+    void shouldRequireEveryQueryToken() {
+        SongSearchResult result = searchService.search("lennon guy", 0, 10);
+
+        assertThat(result.getItems()).extracting(Song::getId).containsExactly(2L);
+    }
+
+    @Test
+    void shouldPageHits() {
+        SongSearchResult result = searchService.search("john", 1, 2);
+
+        assertThat(result.getTotal()).isEqualTo(3);
+        assertThat(result.getItems()).extracting(Song::getId).containsExactly(2L);
+    }
+
+    @Test
+    void shouldRankOnlyUpToRequestedPageInScoreThenIdOrder() {
+        for (long id = 10; id < 510; id++) {
+            add(id, id % 3 == 0 ? "Many " + id : "Song " + id, id % 5 == 0 ? "Many Artists" : "Solo", "Many Albums");
+        }
+        List<Long> expected = new ArrayList<>();
+        for (int weight : new int[]{6, 4, 3, 1}) {
+            for (long id = 10; id < 510; id++) {
+                if ((id % 3 == 0 ? 3 : 0) + (id % 5 == 0 ? 2 : 0) + 1 == weight) {
+                    expected.add(id);
+                }
+            }
+        }
+
+        List<Long> ranked = new ArrayList<>();
+        for (int page = 0; page < 9; page++) {
+            SongSearchResult result = searchService.search("m", page, 60);
+            assertThat(result.getTotal()).isEqualTo(500);
+            result.getItems().forEach(song -> ranked.add(song.getId()));
+        }
+        assertThat(ranked).isEqualTo(expected);
+        assertThat(searchService.search("m", 9, 60).getItems()).isEmpty();
+    }
+
+    @Test
+    void shouldForgetOldTokensOnUpdateAndDelete() {
+        add(3L, "Under Pressure", "Queen", "Hot Space");
+        assertThat(searchService.search("rhapsody", 0, 10).getTotal()).isZero();
+        assertThat(searchService.search("pressure", 0, 10).getTotal()).isEqualTo(1);
+
+        searchService.onSongChanged(SongChangeEvent.deleted(3L));
+
+        assertThat(searchService.search("queen", 0, 10).getTotal()).isZero();
+    }
+
+    @Test
+    void shouldReportMemoryPerSong() {
+        Map<String, Number> stats = searchService.getStats();
+
+        assertThat(stats.get("songs")).isEqualTo(4);
+        assertThat(stats.get("bytesPerSong").longValue()).isPositive();
+    }
+
+    private void add(Long id, String title, String artist, String album) {
+        Song song = new Song(title, artist, album, 2000);
+        song.setId(id);
+        songs.put(id, song);
+        searchService.onSongChanged(SongChangeEvent.created(song));
+    }
+}
@@ -1,10 +1,17 @@
 package archtests;
 
 import com.example.songs.model.Song;
+import com.example.songs.model.SongChangeEvent;
+import com.example.songs.model.SongNotFoundException;
+import com.example.songs.model.SongPage;
+import com.example.songs.model.SongPatch;
+import com.example.songs.model.SongStream;
 import com.example.songs.repository.SongRepository;
 import com.example.songs.service.SongService;
 import org.junit.jupiter.api.*;
 import org.mockito.*;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import java.util.*;
 
 import static org.assertj.core.api.Assertions.*;
@@ -17,6 +24,9 @@ class SongServiceMockTests {
     @Mock
     private SongRepository mockRepository;
 
+    @Mock
+    private ApplicationEventPublisher mockEvents;
+
     private SongService songService;
 
     @Captor
@@ -27,7 +37,7 @@ class SongServiceMockTests {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        songService = new SongService(mockRepository);
+        songService = new SongService(mockRepository, mockEvents);
         song = new Song("Numb", "Linkin Park", "Meteora", 2003);
     }
 
@@ -144,4 +154,139 @@ class SongServiceMockTests {
         assertThrows(NullPointerException.class, () -> songService.deleteSong(null));
         verify(mockRepository, never()).deleteById(any());
     }
+
+    @DisplayName("Get song page - returns next cursor when more rows exist")
+    @Test
+    void getSongPage_shouldReturnCursorWhenMoreRows() {
+        Song first = new Song("Numb", "Linkin Park", "Meteora", 2003);
+        first.setId(1L);
+        Song second = new Song("Faint", "Linkin Park", "Meteora", 2003);
+        second.setId(2L);
+        given(mockRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 2)))
+                .willReturn(List.of(first, second));
+
+        SongPage page = songService.getSongPage(null, 1);
+
+        assertThat(page.getItems()).containsExactly(first);
+        assertThat(SongPage.decodeCursor(page.getNextCursor())).isEqualTo(1L);
+    }
+
+    @DisplayName("Get song page - last page has no cursor")
+    @Test
+    void getSongPage_shouldEndWithoutCursor() {
+        given(mockRepository.findByIdGreaterThanOrderByIdAsc(7L, PageRequest.of(0, 11)))
+                .willReturn(List.of(song));
+
+        SongPage page = songService.getSongPage(SongPage.encodeCursor(7L), 10);
+
+        assertThat(page.getItems()).containsExactly(song);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @DisplayName("Get song page - rejects malformed cursor")
+    @Test
+    void getSongPage_shouldRejectInvalidCursor() {
+        assertThatThrownBy(() -> songService.getSongPage("not a cursor", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        verifyNoInteractions(mockRepository);
+    }
+
+    @DisplayName("Create songs - saves in chunks and drops client ids")
+    @SuppressWarnings("unchecked")
+    @Test
+    void createSongs_shouldSaveInChunks() {
+        Song withId = new Song("Faint", "Linkin Park", "Meteora", 2003);
+        withId.setId(42L);
+        List<Song> input = List.of(song, withId, new Song("Crawling", "Linkin Park", "Hybrid Theory", 2000));
+        List<Integer> chunkSizes = new ArrayList<>();
+        given(mockRepository.saveAll(anyList())).willAnswer(invocation -> {
+            chunkSizes.add(((List<Song>) invocation.getArgument(0)).size());
+            return invocation.getArgument(0);
+        });
+
+        long created = songService.createSongs(new SongStream(input::forEach), 2);
+
+        assertThat(created).isEqualTo(3);
+        assertThat(chunkSizes).containsExactly(2, 1);
+        assertThat(withId.getId()).isNull();
+    }
+
+    @DisplayName("Create song - publishes created event")
+    @Test
+    void createSong_shouldPublishEvent() {
+        song.setId(3L);
+        given(mockRepository.save(song)).willReturn(song);
+        ArgumentCaptor<SongChangeEvent> eventCaptor = ArgumentCaptor.forClass(SongChangeEvent.class);
+
+        songService.createSong(song);
+
+        verify(mockEvents).publishEvent(eventCaptor.capture());
+        assertThat(eventCaptor.getValue().getType()).isEqualTo("created");
+        assertThat(eventCaptor.getValue().getSongId()).isEqualTo(3L);
+    }
+
+    @DisplayName("Delete song - publishes deleted event")
+    @Test
+    void deleteSong_shouldPublishEvent() {
+        ArgumentCaptor<SongChangeEvent> eventCaptor = ArgumentCaptor.forClass(SongChangeEvent.class);
+
+        songService.deleteSong(9L);
+
+        verify(mockEvents).publishEvent(eventCaptor.capture());
+        assertThat(eventCaptor.getValue().isDeleted()).isTrue();
+        assertThat(eventCaptor.getValue().getSongId()).isEqualTo(9L);
+    }
+
+    @DisplayName("Get song by ID - not found is cheap SongNotFoundException")
+    @Test
+    void getSongById_shouldThrowSongNotFoundWithoutStackTrace() {
+        given(mockRepository.findById(5L)).willReturn(Optional.empty());
+
+        assertThatThrownBy(() -> songService.getSongById(5L))
+                .isInstanceOfSatisfying(SongNotFoundException.class, e -> {
+                    assertThat(e.getSongId()).isEqualTo(5L);
+                    assertThat(e.getStackTrace()).isEmpty();
+                });
+    }
+
+    @DisplayName("Delete songs - chunked set-based deletes, per-ID results")
+    @Test
+    void deleteSongs_shouldDeleteInChunksAndReportPerId() {
+        given(mockRepository.deleteExistingByIdIn(List.of(1L, 2L))).willReturn(List.of(1L));
+        given(mockRepository.deleteExistingByIdIn(List.of(3L))).willReturn(List.of(3L));
+
+        Map<Long, Boolean> result = songService.deleteSongs(List.of(1L, 2L, 3L, 1L), 2);
+
+        assertThat(result).containsExactly(Map.entry(1L, true), Map.entry(2L, false), Map.entry(3L, true));
+        verify(mockEvents, times(2)).publishEvent(any(SongChangeEvent.class));
+        verify(mockRepository, never()).deleteById(any());
+    }
+
+    @DisplayName("Get songs by IDs - missing IDs map to null")
+    @Test
+    void getSongsByIds_shouldKeepRequestOrderAndMarkMissing() {
+        song.setId(2L);
+        given(mockRepository.findAllById(List.of(1L, 2L))).willReturn(List.of(song));
+
+        Map<Long, Song> result = songService.getSongsByIds(List.of(1L, 2L), 1000);
+
+        assertThat(result.keySet()).containsExactly(1L, 2L);
+        assertThat(result.get(1L)).isNull();
+        assertThat(result.get(2L)).isSameAs(song);
+    }
+
+    @DisplayName("Patch song - only given fields change")
+    @Test
+    void patchSong_shouldKeepAbsentFields() {
+        given(mockRepository.findById(1L)).willReturn(Optional.of(song));
+        given(mockRepository.save(any(Song.class))).willAnswer(invocation -> invocation.getArgument(0));
+        SongPatch patch = new SongPatch();
+        patch.setAlbum("Live");
+
+        Song result = songService.patchSong(1L, patch);
+
+        assertThat(result).isEqualTo(new Song("Numb", "Linkin Park", "Live", 2003));
+        verify(mockEvents).publishEvent(any(SongChangeEvent.class));
+    }
 }
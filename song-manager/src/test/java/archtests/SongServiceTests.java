@@ -6,6 +6,7 @@ import com.example.songs.service.SongService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.*;
 
@@ -20,7 +21,7 @@ class SongServiceTests {
     @BeforeEach
     void setUp() {
         songRepository = mock(SongRepository.class);
-        songService = new SongService(songRepository);
+        songService = new SongService(songRepository, mock(ApplicationEventPublisher.class));
     }
 
     @Test
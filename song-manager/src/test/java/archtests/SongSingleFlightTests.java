@@ -0,0 +1,76 @@
+package archtests;
+
+import com.example.songs.model.SongNotFoundException;
+import com.example.songs.model.SongSingleFlight;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SongSingleFlightTests {
+
+    private final SongSingleFlight<Long, String> singleFlight = new SongSingleFlight<>();
+
+    @Test
+    void concurrentCallersForSameKeyShouldShareOneLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loaderCalls = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> singleFlight.load(1L, id -> {
+                loaderCalls.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return "song " + id;
+            }), executor);
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+            CompletableFuture<String> second = CompletableFuture.supplyAsync(
+                    () -> singleFlight.load(1L, id -> "unexpected"), executor);
+            while (singleFlight.getCoalesced() == 0) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("song 1");
+            assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("song 1");
+            assertThat(loaderCalls).hasValue(1);
+            assertThat(singleFlight.getLoads()).isEqualTo(1);
+            assertThat(singleFlight.getCoalesced()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void finishedLoadShouldNotBeReused() {
+        singleFlight.load(1L, id -> "first");
+
+        assertThat(singleFlight.load(1L, id -> "second")).isEqualTo("second");
+        assertThat(singleFlight.getCoalesced()).isZero();
+    }
+
+    @Test
+    void loaderExceptionShouldReachCallerAndClearKey() {
+        assertThatThrownBy(() -> singleFlight.load(7L, id -> {
+            throw new SongNotFoundException(id);
+        })).isInstanceOf(SongNotFoundException.class);
+
+        assertThat(singleFlight.load(7L, id -> "found")).isEqualTo("found");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
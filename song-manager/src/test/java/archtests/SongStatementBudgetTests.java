@@ -0,0 +1,120 @@
+package archtests;
+
+import com.example.songs.SongManagerApplication;
+import com.example.songs.SongStatementInspector;
+import com.example.songs.model.Song;
+import com.example.songs.model.SongPatch;
+import com.example.songs.model.SongStream;
+import com.example.songs.repository.SongRepository;
+import com.example.songs.service.SongService;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SQL statements each {@link SongService} operation may execute, counted per thread by
+ * {@link SongStatementInspector}. Every operation is measured with all caches empty, so a
+ * budget is what a cache miss costs. Raise a budget only together with the change that needs it.
+ */
+@SpringBootTest(classes = SongManagerApplication.class)
+class SongStatementBudgetTests {
+
+    @Autowired
+    private SongService service;
+
+    @Autowired
+    private SongRepository repository;
+
+    @Autowired
+    private SongStatementInspector inspector;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Song song;
+
+    @BeforeEach
+    void setUp() {
+        song = repository.save(new Song("Imagine", "John Lennon", "Imagine", 1971));
+        repository.save(new Song("Yesterday", "The Beatles", "Help!", 1965));
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+        clearCaches();
+    }
+
+    @Test
+    void readsShouldRunOneQuery() {
+        assertBudget("getSongById", 1, () -> service.getSongById(song.getId()));
+        assertBudget("getSongByTitle", 1, () -> service.getSongByTitle("Yesterday"));
+        assertBudget("getSongPage", 1, () -> service.getSongPage(null, 10));
+        assertBudget("getCatalogVersion", 1, () -> service.getCatalogVersion());
+        assertBudget("getAllSongs", 1, () -> service.getAllSongs());
+        assertBudget("forEachSong", 1, () -> service.forEachSong(each -> { }));
+        assertBudget("getSongsByIds", 1, () -> service.getSongsByIds(List.of(song.getId(), -1L), 1000));
+    }
+
+    @Test
+    void createShouldInsertOnceAndDrawIdsInBlocks() {
+        assertBudget("createSong", 2, () -> service.createSong(new Song("Help!", "The Beatles", "Help!", 1965)));
+
+        List<Song> songs = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            songs.add(new Song("Song " + i, "Artist", "Album", 2000));
+        }
+        // one insert batch per chunk and one sequence call per 50 ids
+        assertBudget("createSongs", 2 + 5, () -> service.createSongs(new SongStream(songs::forEach), 100));
+    }
+
+    @Test
+    void updatesShouldReadOnceAndWriteOnce() {
+        assertBudget("updateSong", 2, () -> service.updateSong(song.getId(), new Song("Imagine", "Lennon", "Imagine", 1971)));
+        long version = repository.findById(song.getId()).orElseThrow().getVersion();
+        assertBudget("updateSong with version", 2,
+                () -> service.updateSong(song.getId(), new Song("Imagine", "John Lennon", "Imagine", 1971), version));
+
+        SongPatch patch = new SongPatch();
+        patch.setYear(1972);
+        assertBudget("patchSong", 2, () -> service.patchSong(song.getId(), patch));
+        long patchedVersion = repository.findById(song.getId()).orElseThrow().getVersion();
+        // the versioned UPDATE, issued through JdbcTemplate and so not seen by the inspector
+        assertBudget("patchSongAtVersion", 1, () -> service.patchSongAtVersion(song.getId(), patch, patchedVersion));
+    }
+
+    @Test
+    void deletesShouldNotLoadSongsOneByOne() {
+        Song other = repository.save(new Song("Help!", "The Beatles", "Help!", 1965));
+
+        assertBudget("deleteSong", 2, () -> service.deleteSong(song.getId()));
+        assertBudget("deleteSongs", 2, () -> service.deleteSongs(List.of(other.getId(), -1L), 1000));
+    }
+
+    private void assertBudget(String operation, int budget, Runnable action) {
+        clearCaches();
+        inspector.resetThreadCount();
+        action.run();
+        assertThat(inspector.getThreadCount())
+                .as("SQL statements executed by %s", operation)
+                .isLessThanOrEqualTo(budget);
+    }
+
+    private void clearCaches() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+}
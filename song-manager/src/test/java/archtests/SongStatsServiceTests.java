@@ -0,0 +1,84 @@
+package archtests;
+
+import com.example.songs.model.Song;
+import com.example.songs.model.SongChangeEvent;
+import com.example.songs.repository.SongRepository;
+import com.example.songs.service.SongIndexService;
+import com.example.songs.service.SongSearchService;
+import com.example.songs.service.SongService;
+import com.example.songs.service.SongStatsService;
+import com.example.songs.service.SongSuggestService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class SongStatsServiceTests {
+
+    private SongStatsService statsService;
+
+    @BeforeEach
+    void setUp() {
+        statsService = new SongStatsService();
+        statsService.onSongChanged(SongChangeEvent.created(song(1L, "Imagine", "John Lennon", "Imagine", 1971)));
+        statsService.onSongChanged(SongChangeEvent.created(song(2L, "Jealous Guy", "John Lennon", "Imagine", 1971)));
+        statsService.onSongChanged(SongChangeEvent.created(song(3L, "Help!", "The Beatles", "Help!", 1965)));
+    }
+
+    @Test
+    void shouldCountSongsPerGroup() {
+        assertThat(statsService.countByArtist()).containsExactly(Map.entry("John Lennon", 2L), Map.entry("The Beatles", 1L));
+        assertThat(statsService.countByAlbum()).containsExactly(Map.entry("Help!", 1L), Map.entry("Imagine", 2L));
+        assertThat(statsService.countByYear()).containsExactly(Map.entry(1965, 1L), Map.entry(1971, 2L));
+    }
+
+    @Test
+    void shouldMoveSongBetweenGroupsOnUpdate() {
+        statsService.onSongChanged(SongChangeEvent.updated(song(2L, "Jealous Guy", "Roxy Music", "Jealous Guy", 1981)));
+
+        assertThat(statsService.countByArtist()).containsEntry("John Lennon", 1L).containsEntry("Roxy Music", 1L);
+        assertThat(statsService.countByYear()).containsEntry(1971, 1L).containsEntry(1981, 1L);
+    }
+
+    @Test
+    void shouldDropEmptyGroupsOnDelete() {
+        statsService.onSongChanged(SongChangeEvent.deleted(3L));
+        statsService.onSongChanged(SongChangeEvent.deleted(3L));
+
+        assertThat(statsService.countByArtist()).containsOnlyKeys("John Lennon");
+        assertThat(statsService.countByYear()).containsOnlyKeys(1971);
+    }
+
+    @Test
+    void shouldBeLoadedInTheSamePassAsTheOtherIndexes() {
+        SongService songService = mock(SongService.class);
+        willAnswer(invocation -> {
+            Consumer<Song> action = invocation.getArgument(0);
+            List.of(song(1L, "Imagine", "John Lennon", "Imagine", 1971),
+                    song(2L, "Help!", "The Beatles", "Help!", 1965)).forEach(action);
+            return null;
+        }).given(songService).forEachSong(any());
+        SongStatsService stats = new SongStatsService();
+        SongSuggestService suggest = new SongSuggestService();
+
+        new SongIndexService(songService, new SongSearchService(mock(SongRepository.class)), suggest, stats).load();
+
+        verify(songService).forEachSong(any());
+        assertThat(stats.countByArtist()).containsOnlyKeys("John Lennon", "The Beatles");
+        assertThat(suggest.suggest("he", 10)).containsExactly("Help!");
+    }
+
+    private static Song song(Long id, String title, String artist, String album, int year) {
+        Song song = new Song(title, artist, album, year);
+        song.setId(id);
+        return song;
+    }
+}
@@ -0,0 +1,52 @@
+package archtests;
+
+import com.example.songs.model.CanonicalStringConverter;
+import com.example.songs.model.CanonicalStringListener;
+import com.example.songs.model.Song;
+import com.example.songs.model.StringCanonicalizer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SongStringCanonicalizerTests {
+
+    @Test
+    void equalStringsShouldShareOneInstance() {
+        StringCanonicalizer canonicalizer = new StringCanonicalizer(16);
+        String first = canonicalizer.canonicalize(new String("John Lennon"));
+
+        assertThat(canonicalizer.canonicalize(new String("John Lennon"))).isSameAs(first);
+        assertThat(canonicalizer.canonicalize(null)).isNull();
+    }
+
+    @Test
+    void disabledCanonicalizerShouldReturnArgument() {
+        String value = new String("Queen");
+
+        assertThat(new StringCanonicalizer(0).canonicalize(value)).isSameAs(value);
+    }
+
+    @Test
+    void zeroSlotsShouldTurnConverterOff() {
+        CanonicalStringConverter converter = new CanonicalStringConverter(new StringCanonicalizer(0));
+        String value = new String("John Lennon");
+
+        assertThat(converter.convertToEntityAttribute(value)).isSameAs(value);
+    }
+
+    @Test
+    void writtenAndConvertedSongsShouldShareArtistAndAlbum() throws Exception {
+        StringCanonicalizer names = new StringCanonicalizer(16);
+        CanonicalStringListener listener = new CanonicalStringListener(names);
+        Song[] songs = new ObjectMapper().readValue("[{\"title\":\"Imagine\",\"artist\":\"John Lennon\",\"album\":\"Imagine\",\"year\":1971},"
+                + "{\"title\":\"Jealous Guy\",\"artist\":\"John Lennon\",\"album\":\"Imagine\",\"year\":1971}]", Song[].class);
+        listener.canonicalize(songs[0]);
+        listener.canonicalize(songs[1]);
+
+        assertThat(songs[1].getArtist()).isSameAs(songs[0].getArtist());
+        assertThat(songs[1].getAlbum()).isSameAs(songs[0].getAlbum());
+        assertThat(new CanonicalStringConverter(names).convertToEntityAttribute(new String("John Lennon")))
+                .isSameAs(songs[0].getArtist());
+    }
+}
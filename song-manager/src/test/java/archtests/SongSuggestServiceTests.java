@@ -0,0 +1,65 @@
+package archtests;
+
+import com.example.songs.model.Song;
+import com.example.songs.model.SongChangeEvent;
+import com.example.songs.service.SongSuggestService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SongSuggestServiceTests {
+
+    private SongSuggestService suggestService;
+
+    @BeforeEach
+    void setUp() {
+        suggestService = new SongSuggestService();
+        suggestService.onSongChanged(SongChangeEvent.created(song(1L, "Imagine")));
+        suggestService.onSongChanged(SongChangeEvent.created(song(2L, "In The End")));
+        suggestService.onSongChanged(SongChangeEvent.created(song(3L, "Iris")));
+        suggestService.onSongChanged(SongChangeEvent.created(song(4L, "Numb")));
+    }
+
+    @Test
+    void shouldSuggestTitlesByPrefixIgnoringCase() {
+        assertThat(suggestService.suggest("i", 10)).containsExactly("Imagine", "In The End", "Iris");
+        assertThat(suggestService.suggest("IN", 10)).containsExactly("In The End");
+    }
+
+    @Test
+    void shouldRespectLimit() {
+        assertThat(suggestService.suggest("i", 2)).containsExactly("Imagine", "In The End");
+    }
+
+    @Test
+    void shouldReturnNothingForUnknownPrefix() {
+        assertThat(suggestService.suggest("zz", 10)).isEmpty();
+    }
+
+    @Test
+    void shouldFollowRenames() {
+        suggestService.onSongChanged(SongChangeEvent.updated(song(3L, "Numb Encore")));
+
+        assertThat(suggestService.suggest("i", 10)).doesNotContain("Iris");
+        assertThat(suggestService.suggest("numb", 10)).containsExactly("Numb", "Numb Encore");
+    }
+
+    @Test
+    void shouldKeepTitleSharedByAnotherSong() {
+        suggestService.onSongChanged(SongChangeEvent.created(song(5L, "Imagine")));
+        suggestService.onSongChanged(SongChangeEvent.deleted(1L));
+
+        assertThat(suggestService.suggest("ima", 10)).containsExactly("Imagine");
+
+        suggestService.onSongChanged(SongChangeEvent.deleted(5L));
+
+        assertThat(suggestService.suggest("ima", 10)).isEmpty();
+    }
+
+    private static Song song(Long id, String title) {
+        Song song = new Song(title, "Artist", "Album", 2000);
+        song.setId(id);
+        return song;
+    }
+}
@@ -0,0 +1,205 @@
+package archtests;
+
+import com.example.songs.SongManagerApplication;
+import com.example.songs.model.Song;
+import com.example.songs.model.SongWriteBuffer;
+import com.example.songs.model.SongWriteJournal;
+import com.example.songs.repository.SongRepository;
+import com.example.songs.service.SongEntityCacheService;
+import com.example.songs.service.SongService;
+import com.example.songs.service.SongWriteBehindService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = SongManagerApplication.class, properties = {
+        "songs.write.mode=behind", "songs.write.flush-interval=10m", "songs.write.batch-size=1000"})
+class SongWriteBehindTests {
+
+    @Autowired
+    private SongService service;
+
+    @Autowired
+    private SongWriteBehindService writeBehind;
+
+    @Autowired
+    private SongWriteBuffer buffer;
+
+    @Autowired
+    private SongRepository repository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private SongEntityCacheService entityCache;
+
+    @AfterEach
+    void tearDown() {
+        writeBehind.flush();
+        repository.deleteAll();
+    }
+
+    @Test
+    void createdSongShouldBeReadableBeforeItIsWritten() {
+        Song created = service.createSong(new Song("Imagine", "John Lennon", "Imagine", 1971));
+
+        assertThat(created.getId()).isNotNull();
+        assertThat(repository.existsById(created.getId())).isFalse();
+        assertThat(service.getSongById(created.getId()).getTitle()).isEqualTo("Imagine");
+
+        writeBehind.flush();
+
+        assertThat(repository.findById(created.getId()).orElseThrow().getTitle()).isEqualTo("Imagine");
+        Song direct = repository.save(new Song("Help!", "The Beatles", "Help!", 1965));
+        assertThat(direct.getId()).isNotEqualTo(created.getId());
+    }
+
+    @Test
+    void pendingWritesShouldBeCoalescedAndGroupCommitted() {
+        long flushes = buffer.getFlushes();
+        long coalesced = buffer.getCoalesced();
+        Song song = service.createSong(new Song("Imagine", "John Lennon", "Imagine", 1971));
+        for (int i = 0; i < 10; i++) {
+            service.createSong(new Song("Song " + i, "Artist", "Album", 2000));
+        }
+        service.updateSong(song.getId(), new Song("Imagine", "John Lennon", "Imagine", 1972));
+        Song latest = service.updateSong(song.getId(), new Song("Imagine", "John Lennon", "Imagine", 1973));
+
+        writeBehind.flush();
+
+        assertThat(buffer.getFlushes() - flushes).isEqualTo(1);
+        assertThat(buffer.getCoalesced() - coalesced).isEqualTo(2);
+        Song stored = repository.findById(song.getId()).orElseThrow();
+        assertThat(stored.getYear()).isEqualTo(1973);
+        assertThat(stored.getVersion()).isEqualTo(latest.getVersion()).isEqualTo(2);
+        assertThat(repository.count()).isEqualTo(11);
+    }
+
+    @Test
+    void updateOfStoredSongShouldBeWrittenWithNextVersion() {
+        Song song = service.createSong(new Song("Imagine", "John Lennon", "Imagine", 1971));
+        writeBehind.flush();
+
+        Song updated = service.updateSong(song.getId(), new Song("Imagine", "John Lennon", "Imagine (Remastered)", 1971));
+        writeBehind.flush();
+
+        assertThat(updated.getVersion()).isEqualTo(1);
+        assertThat(repository.findById(song.getId()).orElseThrow().getAlbum()).isEqualTo("Imagine (Remastered)");
+    }
+
+    @Test
+    void deleteShouldApplyToPendingSong() {
+        Song song = service.createSong(new Song("Imagine", "John Lennon", "Imagine", 1971));
+
+        service.deleteSong(song.getId());
+
+        assertThat(buffer.size()).isZero();
+        assertThat(repository.existsById(song.getId())).isFalse();
+    }
+
+    @Test
+    void refusedSongShouldBeDroppedWithoutHoldingUpTheRestOfTheBatch() {
+        long dropped = buffer.getDropped();
+        Song before = service.createSong(new Song("Imagine", "John Lennon", "Imagine", 1971));
+        Song refused = service.createSong(new Song("x".repeat(10_000), "John Lennon", "Imagine", 1971));
+        Song after = service.createSong(new Song("Help!", "The Beatles", "Help!", 1965));
+
+        writeBehind.flush();
+
+        assertThat(buffer.size()).isZero();
+        assertThat(buffer.getDropped() - dropped).isEqualTo(1);
+        assertThat(repository.existsById(before.getId())).isTrue();
+        assertThat(repository.existsById(after.getId())).isTrue();
+        assertThat(repository.existsById(refused.getId())).isFalse();
+    }
+
+    @Test
+    void flushShouldEvictOnlyWrittenSongsFromSecondLevelCache() {
+        Song other = repository.save(new Song("Help!", "The Beatles", "Help!", 1965));
+        Song song = repository.save(new Song("Imagine", "John Lennon", "Imagine", 1971));
+        repository.findById(other.getId());
+        repository.findById(song.getId());
+        Cache cache = entityManagerFactory.getCache();
+        assertThat(cache.contains(Song.class, song.getId())).isTrue();
+
+        service.updateSong(song.getId(), new Song("Imagine", "John Lennon", "Imagine", 1972));
+        writeBehind.flush();
+
+        assertThat(cache.contains(Song.class, song.getId())).isFalse();
+        assertThat(cache.contains(Song.class, other.getId())).isTrue();
+        assertThat(repository.findById(song.getId()).orElseThrow().getYear()).isEqualTo(1972);
+    }
+
+    @Test
+    void journaledSongsShouldBeStoredOnStart(@TempDir Path dir) throws Exception {
+        Song stored = repository.save(new Song("Imagine", "John Lennon", "Imagine", 1971));
+        Song newer = repository.save(new Song("Help!", "The Beatles", "Help!", 1965));
+        newer.setYear(1966);
+        newer = repository.save(newer);
+        Path file = dir.resolve("songs.journal");
+        try (SongWriteJournal journal = new SongWriteJournal(file)) {
+            journal.append(withIdAndVersion(new Song("Imagine", "John Lennon", "Imagine (Remastered)", 1971),
+                    stored.getId(), 2));
+            journal.append(withIdAndVersion(new Song("Imagine", "John Lennon", "Imagine", 1972), stored.getId(), 1));
+            journal.append(withIdAndVersion(new Song("Help!", "The Beatles", "Help!", 1964), newer.getId(), 0));
+            journal.append(withIdAndVersion(new Song("Yesterday", "The Beatles", "Help!", 1965), 1_000_000L, 0));
+        }
+        Files.write(file, new byte[]{0, 0, 0}, StandardOpenOption.APPEND);
+
+        SongWriteBehindService restarted = new SongWriteBehindService(new SongWriteBuffer(10), jdbc,
+                transactionManager, entityCache, 10, Duration.ofMinutes(10), Duration.ofSeconds(1), file.toString());
+        restarted.start();
+        restarted.stop();
+
+        assertThat(Files.size(file)).isZero();
+        Song replayed = repository.findById(stored.getId()).orElseThrow();
+        assertThat(replayed.getAlbum()).isEqualTo("Imagine (Remastered)");
+        assertThat(replayed.getVersion()).isEqualTo(2);
+        assertThat(repository.findById(newer.getId()).orElseThrow().getYear()).isEqualTo(1966);
+        assertThat(repository.findById(1_000_000L).orElseThrow().getTitle()).isEqualTo("Yesterday");
+    }
+
+    @Test
+    void fullBufferShouldTurnWritersAway() throws InterruptedException {
+        SongWriteBuffer small = new SongWriteBuffer(1);
+        Song first = new Song("Imagine", "John Lennon", "Imagine", 1971);
+        first.setId(1L);
+        Song second = new Song("Help!", "The Beatles", "Help!", 1965);
+        second.setId(2L);
+
+        assertThat(small.offer(first, true, 0, TimeUnit.MILLISECONDS)).isTrue();
+        assertThat(small.offer(second, true, 10, TimeUnit.MILLISECONDS)).isFalse();
+        assertThat(small.offer(first, false, 0, TimeUnit.MILLISECONDS)).isTrue();
+
+        small.complete(small.drain(10), 0);
+        assertThat(small.offer(second, true, 0, TimeUnit.MILLISECONDS)).isTrue();
+    }
+
+    private static Song withIdAndVersion(Song song, long id, long version) {
+        song.setId(id);
+        song.setVersion(version);
+        return song;
+    }
+}